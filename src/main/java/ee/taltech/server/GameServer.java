@@ -3,38 +3,55 @@ package ee.taltech.server;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers;
 import com.esotericsoftware.kryonet.Server;
+import com.esotericsoftware.minlog.Log;
 import ee.taltech.server.ai.Grid;
+import ee.taltech.server.ai.PathFindingService;
+import ee.taltech.server.network.BroadcastSerialization;
 import ee.taltech.server.network.ServerListener;
+import ee.taltech.server.network.serializers.WorldSnapshotSerializer;
 import ee.taltech.server.network.messages.game.*;
 import ee.taltech.server.network.messages.lobby.*;
+import ee.taltech.server.components.Constants;
 import ee.taltech.server.components.Game;
 import ee.taltech.server.components.Lobby;
 import ee.taltech.server.components.ItemTypes;
 import ee.taltech.server.world.MapObjectData;
+import ee.taltech.server.world.TerrainCatalogue;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class GameServer {
     public final Server server;
+    private final BroadcastSerialization serialization;
     public final Map<Integer, Integer> connections;
     public final Map<Integer, Lobby> lobbies;
     public final Map<Integer, Game> games;
+    public final TerrainCatalogue terrain;
+    public final PathFindingService pathFinding;
 
     public final List<Integer> connectionsToRemove;
     public final List<Integer> lobbiesToRemove;
     public final List<Integer> gamesToRemove;
     public final Map<Integer, Lobby> playersToRemoveFromLobbies;
 
+    private final Queue<Runnable> commands;
+
     /**
      * Main constructor for the server.
      */
     public GameServer() {
         this.lobbies = new HashMap<>(); // Contains gameIds: lobby
-        this.connections = new HashMap<>(); // Contains playerId: gameId
-        this.games = new HashMap<>(); // Contains gameIds: game
+        // Read by the listener thread to find the player's game, so these have to be concurrent
+        this.connections = new ConcurrentHashMap<>(); // Contains playerId: gameId
+        this.games = new ConcurrentHashMap<>(); // Contains gameIds: game
+        this.commands = new ConcurrentLinkedQueue<>(); // Server changes queued by the listener
 
-        this.server = new Server();
+        // Larger object buffer, because a whole game's snapshot is sent in one message
+        this.serialization = new BroadcastSerialization();
+        this.server = new Server(Constants.WRITE_BUFFER_SIZE, Constants.OBJECT_BUFFER_SIZE, serialization);
 
         // Removal lists for avoiding concurrent modification
         connectionsToRemove = new ArrayList<>();
@@ -43,6 +60,8 @@ public class GameServer {
         playersToRemoveFromLobbies = new HashMap<>();
 
         Grid.setGrid(Grid.readGridFromFile()); // Read and set grid from the file
+        this.terrain = TerrainCatalogue.load(); // Read map's collision shapes once for every game
+        this.pathFinding = new PathFindingService(); // Shared by every mob in every game
 
         server.start();
         try { // Establishes a connection with ports
@@ -59,6 +78,58 @@ public class GameServer {
         server.addListener(new ServerListener(this)); // Creates a new listener, to listen to messages and connections.
     }
 
+    /**
+     * Queue a change to the server's state.
+     * Commands are run on the tick thread at the start of the next tick.
+     *
+     * @param command change that is run on the tick thread
+     */
+    public void queueCommand(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Run all the commands that have been queued since the last tick.
+     */
+    public void processCommands() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.run();
+            } catch (RuntimeException e) { // One bad message should not stop the tick
+                Log.error("Command failed!", e);
+            }
+        }
+    }
+
+    /**
+     * Send the same message to every given connection over UDP.
+     * Message is serialized only once.
+     *
+     * @param connectionIds connections that the message is sent to
+     * @param message message that is sent
+     */
+    public void broadcastUDP(Collection<Integer> connectionIds, Object message) {
+        BroadcastSerialization.EncodedMessage encoded = serialization.encode(message);
+        for (Integer connectionId : connectionIds) {
+            server.sendToUDP(connectionId, encoded);
+        }
+    }
+
+    /**
+     * Send the same message to every given connection over TCP.
+     * Message is serialized only once.
+     *
+     * @param connectionIds connections that the message is sent to
+     * @param message message that is sent
+     */
+    public void broadcastTCP(Collection<Integer> connectionIds, Object message) {
+        BroadcastSerialization.EncodedMessage encoded = serialization.encode(message);
+        for (Integer connectionId : connectionIds) {
+            server.sendToTCP(connectionId, encoded);
+        }
+    }
+
     /**
      * Method for creating communication channels with the clients.
      * This should be identical to the client side, else it won't work.
@@ -96,6 +167,14 @@ public class GameServer {
         kryo.register(UpdateMobHealth.class);
         kryo.register(GameLeave.class);
         kryo.register(GameOver.class);
+        kryo.register(WorldSnapshot.class, new WorldSnapshotSerializer());
+        kryo.register(WorldSnapshot.PlayerState.class);
+        kryo.register(WorldSnapshot.PlayerState[].class);
+        kryo.register(WorldSnapshot.SpellState.class);
+        kryo.register(WorldSnapshot.SpellState[].class);
+        kryo.register(WorldSnapshot.MobState.class);
+        kryo.register(WorldSnapshot.MobState[].class);
+        kryo.register(SnapshotAck.class);
         kryo.addDefaultSerializer(KeyPress.Action.class, DefaultSerializers.EnumSerializer.class);
         kryo.addDefaultSerializer(ItemTypes.class, DefaultSerializers.EnumSerializer.class);
     }
@@ -1,6 +1,7 @@
 package ee.taltech.server;
 
 import com.esotericsoftware.kryonet.Server;
+import com.esotericsoftware.minlog.Log;
 import ee.taltech.server.components.Constants;
 import ee.taltech.server.components.Lobby;
 import ee.taltech.server.entities.*;
@@ -11,10 +12,18 @@ import ee.taltech.server.components.Game;
 import ee.taltech.server.network.messages.lobby.Leave;
 import ee.taltech.server.network.messages.lobby.LobbyDismantle;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TickRateLoop implements Runnable {
-    private volatile boolean running = true;
+    private final TickScheduler scheduler;
+    private final ExecutorService gameTickPool;
     private Server server;
     private GameServer gameServer;
 
@@ -24,6 +33,10 @@ public class TickRateLoop implements Runnable {
     public TickRateLoop(Server server, GameServer gameServer) {
         this.server = server;
         this.gameServer = gameServer;
+        this.scheduler = new TickScheduler(Constants.TICKS_PER_SECOND);
+        // Worker pool for ticking games in parallel, null if games are ticked one by one
+        this.gameTickPool = Constants.PARALLEL_GAME_TICKS
+                ? Executors.newFixedThreadPool(Constants.GAME_TICK_THREADS) : null;
         // Whole list for the players in the list.
     }
 
@@ -33,22 +46,7 @@ public class TickRateLoop implements Runnable {
      */
     public void run() {
         // TPS means ticks per second.
-        double tps = 60;
-        // Time since last tick.
-        double delta = 0;
-        // Time since last update
-        long lastTime = System.nanoTime();
-        while (running) {
-            long now = System.nanoTime();
-            // Logic to implement TPS in a second.
-            delta += (now - lastTime) / (1000000000.0 / tps);
-            lastTime = now;
-            while (delta >= 1) {
-                // Tick() to send out a tick calculation.
-                tick();
-                delta--;
-            }
-        }
+        scheduler.run(this::tick);
     }
 
     /**
@@ -56,6 +54,9 @@ public class TickRateLoop implements Runnable {
      * Contains logic that needs to be updated every tick.
      */
     public void tick() {
+        // *--------------- SERVER COMMANDS ---------------*
+        gameServer.processCommands();
+
         // *--------------- REMOVE CONNECTION ---------------*
         for (Integer connection : gameServer.connectionsToRemove) {
             gameServer.connections.remove(connection);
@@ -90,84 +91,160 @@ public class TickRateLoop implements Runnable {
         gameServer.playersToRemoveFromLobbies.clear();
 
         // *--------------- GAME LOOPS ---------------*
-        float deltaTime = 1.0f / 60f;
+        if (gameTickPool != null && gameServer.games.size() > 1) {
+            tickGamesInParallel();
+        } else {
+            for (Game game : gameServer.games.values()) {
+                if (tickGame(game)) {
+                    gameServer.gamesToRemove.add(game.gameId); // Remove the game from the sever
+                }
+            }
+        }
+    }
+
+    /**
+     * Tick all games on the worker pool.
+     * Games are split into shards by their ID, so one slow game only delays the games in its own shard.
+     * Method returns when every shard has finished its tick.
+     */
+    private void tickGamesInParallel() {
+        List<List<Game>> shards = new ArrayList<>();
+        for (int i = 0; i < Constants.GAME_TICK_THREADS; i++) {
+            shards.add(new ArrayList<>());
+        }
         for (Game game : gameServer.games.values()) {
-            // Item spawning to the world
-            if (game.getStaringTicks() <= Constants.TICKS_TO_START_GAME) game.addTick(true);
-            if (game.getStaringTicks() == Constants.TICKS_TO_START_GAME) { // Trigger only once
-                new EntitySpawner(game);
-                game.sendPlayZoneCoordinates();
+            shards.get(game.gameId % Constants.GAME_TICK_THREADS).add(game);
+        }
+
+        List<Callable<List<Integer>>> tasks = new ArrayList<>();
+        for (List<Game> shard : shards) {
+            if (!shard.isEmpty()) {
+                tasks.add(() -> tickShard(shard));
             }
+        }
 
-            // End the game
-            if (game.gamePlayers.size() - game.getDeadPlayers().size() <= 1) { // If last player is alive
-                // Let the game finish it's logic before ending
-                if (game.getEndingTicks() < Constants.TICKS_TO_END_GAME) game.addTick(false);
-                if (game.getEndingTicks() == Constants.TICKS_TO_END_GAME) {
-                    game.endGame(); // End the game
-                    gameServer.gamesToRemove.add(game.gameId); // Remove the game from the sever
-                    continue; // Skip updating
-                }
+        List<Future<List<Integer>>> results;
+        try {
+            results = gameTickPool.invokeAll(tasks); // Barrier for all the shards
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Future<List<Integer>> endedGames : results) {
+            try {
+                gameServer.gamesToRemove.addAll(endedGames.get()); // Remove the games from the sever
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) { // Other shards' ended games are still collected
+                Log.error("Game tick failed!", e.getCause());
             }
+        }
+    }
 
-            for (PlayerCharacter player : game.gamePlayers.values()) {
-                if (!game.getDeadPlayers().contains(player)) {
-                    player.updatePosition();
-                }
-                if (player.getCollidingWithMob()) {
-                    game.damagePlayer(player.playerID, Constants.MOB_DMG_PER_TIC);
-                }
-                if (player.mana != 100) {
-                    player.regenerateMana();
-                }
-                if (player.getHealingTicks() > 0) {
-                    player.regenerateHealth();
-                }
-                if (!game.getPlayZone().areCoordinatesInZone((int) player.getXPosition(), (int) player.getYPosition())
-                        && !game.getDeadPlayers().contains(player)) {
-                    game.damagePlayer(player.getPlayerID(), Constants.ZONE_DMG_PER_TIC);
-                }
-                for (Integer playerId : game.lobby.players) {
-                    server.sendToUDP(playerId, new Position(player.playerID, player.getXPosition(), player.getYPosition()));
-                    server.sendToUDP(playerId, new UpdateHealth(player.playerID, (int) player.health));
-                    server.sendToUDP(playerId, new UpdateMana(player.playerID, player.mana));
-                    server.sendToUDP(playerId, new PlayZoneUpdate(game.getPlayZone().getTimer(), game.getPlayZone().stage()));
-                    server.sendToUDP(playerId, new ActionTaken(player.playerID, player.getMouseLeftClick(),
-                            game.gamePlayers.get(player.playerID).mouseXPosition,
-                            game.gamePlayers.get(player.playerID).mouseYPosition));
+    /**
+     * Tick every game in the shard.
+     * A game whose tick throws is logged and the other games of the shard are still ticked.
+     *
+     * @param shard games that are ticked on this worker
+     * @return IDs of the games that ended during this tick
+     */
+    private List<Integer> tickShard(List<Game> shard) {
+        List<Integer> endedGames = new ArrayList<>();
+        for (Game game : shard) {
+            try {
+                if (tickGame(game)) {
+                    endedGames.add(game.gameId);
                 }
+            } catch (RuntimeException e) { // One broken game should not skip the rest of the shard
+                Log.error("Game " + game.gameId + " tick failed!", e);
+            }
+        }
+        return endedGames;
+    }
+
+    /**
+     * Run one tick of the given game.
+     * Game's own state is only touched by the thread that ticks it.
+     *
+     * @param game game that is ticked
+     * @return true if the game ended and should be removed from the server
+     */
+    private boolean tickGame(Game game) {
+        float deltaTime = 1.0f / Constants.TICKS_PER_SECOND;
+
+        // Apply everything players have sent since the last tick
+        game.processCommands();
+
+        // Item spawning to the world
+        if (game.getStaringTicks() <= Constants.TICKS_TO_START_GAME) game.addTick(true);
+        if (game.getStaringTicks() == Constants.TICKS_TO_START_GAME) { // Trigger only once
+            new EntitySpawner(game);
+            game.sendPlayZoneCoordinates();
+        }
+
+        // End the game
+        if (game.gamePlayers.size() - game.getDeadPlayers().size() <= 1) { // If last player is alive
+            // Let the game finish it's logic before ending
+            if (game.getEndingTicks() < Constants.TICKS_TO_END_GAME) game.addTick(false);
+            if (game.getEndingTicks() == Constants.TICKS_TO_END_GAME) {
+                game.endGame(); // End the game
+                return true; // Skip updating
             }
-            for (Spell spell : game.spells.values()) {
-                spell.updatePosition(deltaTime);
+        }
 
-                // Remove spells that are out of the world
-                if (0 > spell.getSpellXPosition() || spell.getSpellXPosition() > 300
-                        || 0 > spell.getSpellYPosition() || spell.getSpellYPosition() > 300) {
-                    game.removeSpell(spell.getSpellId());
-                }
-                for (Integer playerId : game.lobby.players) {
-                    server.sendToUDP(playerId, new SpellPosition(spell.getPlayerId(), spell.getSpellId(),
-                                spell.getSpellXPosition(), spell.getSpellYPosition(), spell.getType()));
-                }
+        for (PlayerCharacter player : game.gamePlayers.values()) {
+            if (!game.getDeadPlayers().contains(player)) {
+                player.updatePosition();
             }
-            for (Mob mob : game.mobs.values()) {
-                mob.updatePosition();
+            if (player.getCollidingWithMob()) {
+                game.damagePlayer(player.playerID, Constants.MOB_DMG_PER_TIC);
+            }
+            if (player.mana != 100) {
+                player.regenerateMana();
+            }
+            if (player.getHealingTicks() > 0) {
+                player.regenerateHealth();
+            }
+            if (!game.getPlayZone().areCoordinatesInZone((int) player.getXPosition(), (int) player.getYPosition())
+                    && !game.getDeadPlayers().contains(player)) {
+                game.damagePlayer(player.getPlayerID(), Constants.ZONE_DMG_PER_TIC);
+            }
+        }
+        for (Spell spell : game.spells.values()) {
+            spell.updatePosition(deltaTime);
 
-                if (!game.getPlayZone().areCoordinatesInZone((int) mob.getXPosition(), (int) mob.getYPosition())
-                        && mob.getHealth() > 0) {
-                    game.damageMob(mob.getId(), Constants.ZONE_DMG_PER_TIC);
-                }
+            // Remove spells that are out of the world
+            if (0 > spell.getSpellXPosition() || spell.getSpellXPosition() > Constants.WORLD_SIZE
+                    || 0 > spell.getSpellYPosition() || spell.getSpellYPosition() > Constants.WORLD_SIZE) {
+                game.removeSpell(spell.getSpellId());
+            }
+        }
+        game.scheduleMobs();
+        for (Mob mob : game.mobs.values()) {
+            if (mob.isActive()) { // Frozen mobs are far from every player
+                mob.updatePosition();
+            }
 
-                for (Integer playerId : game.lobby.players) {
-                    server.sendToUDP(playerId, new MobPosition(mob.getId(), mob.getXPosition(), mob.getYPosition()));
-                    server.sendToUDP(playerId, new UpdateMobHealth(mob.getId(), (int) mob.getHealth()));
-                }
+            if (!game.getPlayZone().areCoordinatesInZone((int) mob.getXPosition(), (int) mob.getYPosition())
+                    && mob.getHealth() > 0) {
+                game.damageMob(mob.getId(), Constants.ZONE_DMG_PER_TIC);
+            }
 
-                if (mob.getHealth() == 0) { // Check if mob is dead
-                    game.removeMob(mob);
-                }
+            if (mob.getHealth() == 0) { // Check if mob is dead
+                game.removeMob(mob);
             }
-            game.update();
         }
+
+        game.sendPlayZoneChanges();
+
+        // Send every nearby entity's state in one message per player, only the changes if the player has acknowledged
+        WorldSnapshot snapshot = game.createSnapshot();
+        for (Integer playerId : game.lobby.players) {
+            server.sendToUDP(playerId, game.encodeSnapshot(playerId, snapshot));
+        }
+
+        game.update();
+        return false;
     }
 }
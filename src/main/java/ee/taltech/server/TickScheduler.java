@@ -0,0 +1,109 @@
+package ee.taltech.server;
+
+import com.esotericsoftware.minlog.Log;
+import ee.taltech.server.components.Constants;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class TickScheduler {
+    private final long tickNanos;
+    private volatile boolean running = true;
+
+    // Statistics since the last report
+    private long ticks;
+    private long overruns;
+    private long skippedTicks;
+    private long totalJitterNanos;
+    private long maxJitterNanos;
+
+    /**
+     * Construct TickScheduler.
+     *
+     * @param ticksPerSecond how many ticks should be run in a second
+     */
+    public TickScheduler(int ticksPerSecond) {
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+    }
+
+    /**
+     * Run the given tick at a fixed rate until the scheduler is stopped.
+     * Between ticks the thread is parked and only the last sub-millisecond is spun,
+     * so an idle server does not keep a whole core busy.
+     *
+     * @param tick logic that is run every tick
+     */
+    public void run(Runnable tick) {
+        long nextTick = System.nanoTime();
+        while (running) {
+            nextTick += tickNanos;
+            waitUntil(nextTick);
+
+            long now = System.nanoTime();
+            recordJitter(now - nextTick);
+            tick.run();
+
+            // Check how far behind the schedule the tick left us
+            long behindTicks = (System.nanoTime() - nextTick) / tickNanos;
+            if (behindTicks > 0) {
+                overruns++;
+            }
+            if (behindTicks > Constants.MAX_CATCH_UP_TICKS) {
+                // Drop ticks that can't be caught up, so a stall doesn't cause a burst of ticks
+                long ticksToSkip = behindTicks - Constants.MAX_CATCH_UP_TICKS;
+                skippedTicks += ticksToSkip;
+                nextTick += ticksToSkip * tickNanos;
+            }
+
+            if (++ticks == Constants.TICK_STATS_INTERVAL_TICKS) {
+                reportStatistics();
+            }
+        }
+    }
+
+    /**
+     * Stop the scheduler after the current tick.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Park the thread until the deadline and spin only for the last moment.
+     *
+     * @param deadline System.nanoTime() value to wait for
+     */
+    private void waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > 0) {
+            if (remaining > Constants.TICK_SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - Constants.TICK_SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Record how late the tick started compared to its schedule.
+     *
+     * @param jitterNanos lateness of the tick in nanoseconds
+     */
+    private void recordJitter(long jitterNanos) {
+        totalJitterNanos += jitterNanos;
+        maxJitterNanos = Math.max(maxJitterNanos, jitterNanos);
+    }
+
+    /**
+     * Log tick statistics and reset them.
+     */
+    private void reportStatistics() {
+        Log.info(String.format("Ticks: %d, overruns: %d, skipped: %d, jitter avg: %d us, max: %d us",
+                ticks, overruns, skippedTicks, totalJitterNanos / ticks / 1000, maxJitterNanos / 1000));
+        ticks = 0;
+        overruns = 0;
+        skippedTicks = 0;
+        totalJitterNanos = 0;
+        maxJitterNanos = 0;
+    }
+}
@@ -1,103 +1,147 @@
 package ee.taltech.server.ai;
 
-import com.esotericsoftware.minlog.Log;
-import ee.taltech.server.components.Constants;
+/**
+ * A* over the grid's cells without allocating anything per expanded cell.
+ * Moves in 8 directions with octile costs, diagonal moves may not cut wall corners.
+ */
+public class AStarPathFinding implements PathFinder {
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.concurrent.*;
+    private final NavigationGrid grid;
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14; // Approximately 10 * sqrt(2)
 
-public class AStarPathFinding {
-
-    private final int maxX;
-    private final int maxY;
-    private final int[][] grid;
-    private final int[][] neighbours = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
-
-    private final ExecutorService service;
+    private final int[][] neighbours = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private final SearchState state;
+    private int source;
+    private int destination;
+    private int dstX;
+    private int dstY;
 
     /**
      * Construct A star path finding.
+     *
+     * @param grid grid of the cells the agent can walk on
      */
-    public AStarPathFinding() {
-        grid = Grid.grid;
-        this.maxX = Constants.MAX_X_NODE;
-        this.maxY = Constants.MAX_Y_NODE;
-        this.service = Executors.newSingleThreadExecutor();
-    }
-
-    /**
-     * Put path finding on a different thread.
-     */
-    public List<Node> findPath(int srcX, int srcY, int dstX, int dstY) {
-        try {
-            return service.submit(() -> findPathPrivate(srcX, srcY, dstX, dstY)).get();
-        } catch (InterruptedException e) {
-            Log.info("Path finding got interrupted! Exception: " + e);
-            return Collections.emptyList();
-        } catch (ExecutionException e) {
-            Log.info("Path finding got interrupted! Exception: " + e);
-            return Collections.emptyList();
-        }
+    public AStarPathFinding(NavigationGrid grid) {
+        this.grid = grid;
+        this.state = new SearchState();
     }
 
     /**
-     * Find path from source to destination.
+     * Start finding path from source to destination.
      *
      * @param srcX source node's x
      * @param srcY source node's y
      * @param dstX destination node's x
      * @param dstY destination node's y
-     * @return a path as list of nodes
      */
-    private List<Node> findPathPrivate(int srcX, int srcY, int dstX, int dstY) {
-        List<Node> path = new ArrayList<>();
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingInt(Node::getFScore));
-        openSet.add(new Node(srcX, srcY, maxY));
-        Set<Node> closedSet = new HashSet<>();
+    @Override
+    public void start(int srcX, int srcY, int dstX, int dstY) {
+        this.dstX = dstX;
+        this.dstY = dstY;
+        this.source = Grid.toCell(srcX, srcY);
+        this.destination = Grid.toCell(dstX, dstY);
+        state.start();
+        state.open(source, 0, -1, octileHeuristic(srcX, srcY, dstX, dstY));
+    }
 
-        while (!openSet.isEmpty()) {
-            Node current = openSet.poll();
-            if (current.getX() == dstX && current.getY() == dstY) {
-                while (current != null) {
-                    path.add(current);
-                    current = current.getParent();
-                }
-                path.removeLast();
-                return path.reversed();
+    /**
+     * Continue the started search.
+     *
+     * @param maxExpansions number of cells that can be expanded before the search is suspended
+     * @return path as cells from the first step to the destination, NO_PATH if there is none,
+     *         null if the search was suspended
+     */
+    @Override
+    public int[] resume(int maxExpansions) {
+        for (int i = 0; i < maxExpansions && !state.isOpenEmpty(); i++) {
+            int current = state.pop();
+            if (current == destination) {
+                return buildPath(source, destination);
             }
-            closedSet.add(current);
+            state.close(current);
+
+            int currentX = Grid.cellX(current);
+            int currentY = Grid.cellY(current);
             for (int[] neighbour : neighbours) {
-                int x = current.getX() + neighbour[0];
-                int y = current.getY() + neighbour[1];
-                if ( x < 0 || x >= maxX || y < 0 || y >= maxY || grid[y][x] == 1) {
+                int x = currentX + neighbour[0];
+                int y = currentY + neighbour[1];
+                if (!grid.isWalkable(x, y)) {
                     continue;
                 }
-                Node neighbor = new Node(x, y, maxY);
-                int newGScore = current.getGScore() + 1;
-                if (closedSet.contains(neighbor)) {
+                boolean diagonal = neighbour[0] != 0 && neighbour[1] != 0;
+                if (diagonal && (!grid.isWalkable(x, currentY) || !grid.isWalkable(currentX, y))) {
+                    continue; // Would cut the corner of a wall
+                }
+                int newGScore = state.getGScore(current) + (diagonal ? DIAGONAL_COST : STRAIGHT_COST);
+                int cell = Grid.toCell(x, y);
+                if (state.isClosed(cell)) {
                     continue;
                 }
-                if (!openSet.contains(neighbor) || newGScore < neighbor.getGScore()) {
-                    neighbor.setParent(current);
-                    neighbor.setgScore(newGScore);
-                    neighbor.updateHScore(dstX, dstY);
-                    openSet.add(neighbor);
+                if (!state.isSeen(cell)) {
+                    state.open(cell, newGScore, current, newGScore + octileHeuristic(x, y, dstX, dstY));
+                } else if (newGScore < state.getGScore(cell)) { // Found a shorter way to an open cell
+                    state.decrease(cell, newGScore, current, newGScore + octileHeuristic(x, y, dstX, dstY));
                 }
             }
         }
-        return Collections.emptyList();
+        return state.isOpenEmpty() ? NO_PATH : null;
     }
 
     /**
-     * Close path finding thead.
+     * Get number of cells expanded since the search started.
+     *
+     * @return expanded cells
+     */
+    @Override
+    public int getExpansions() {
+        return state.getExpansions();
+    }
+
+    /**
+     * Follow parents from the destination back to the source.
+     *
+     * @param source      source cell, not included in the path
+     * @param destination destination cell
+     * @return path from the first step to the destination
+     */
+    private int[] buildPath(int source, int destination) {
+        int length = 0;
+        for (int cell = destination; cell != source; cell = state.getParent(cell)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = destination; cell != source; cell = state.getParent(cell)) {
+            path[--length] = cell;
+        }
+        return path;
+    }
+
+    /**
+     * Get octile distance to the destination, in the same units as the move costs.
+     *
+     * @param x    cell's x
+     * @param y    cell's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     * @return h score
+     */
+    private static int octileHeuristic(int x, int y, int dstX, int dstY) {
+        int dx = Math.abs(x - dstX);
+        int dy = Math.abs(y - dstY);
+        return STRAIGHT_COST * Math.max(dx, dy) + (DIAGONAL_COST - STRAIGHT_COST) * Math.min(dx, dy);
+    }
+
+    /**
+     * Get Manhattan distance to the destination, used by the 4-directional searches.
+     *
+     * @param x    cell's x
+     * @param y    cell's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     * @return h score
      */
-    public void closePathFindingThread() {
-        service.close();
+    static int heuristic(int x, int y, int dstX, int dstY) {
+        return Math.abs(x - dstX) + Math.abs(y - dstY);
     }
 }
@@ -0,0 +1,114 @@
+package ee.taltech.server.ai;
+
+/**
+ * Distance from every cell to the nearest wall, built once from the grid.
+ * Clearance is the Chebyshev distance in cells: 0 for a wall, 1 next to a wall, and so on.
+ * A cell with clearance c has a free square of 2c - 1 cells around it, so a mob whose radius
+ * is under c - 0.5 cells fits there without touching a wall.
+ */
+public class ClearanceMap {
+    private static final int MAX_CLEARANCE = Byte.MAX_VALUE;
+
+    private final int width;
+    private final int height;
+    private final byte[] clearance;
+
+    /**
+     * Construct ClearanceMap with a two-pass distance transform.
+     * Cells outside the grid count as walls.
+     *
+     * @param grid navigation grid
+     */
+    public ClearanceMap(NavigationGrid grid) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.clearance = new byte[width * height];
+
+        // Forward pass takes the cells below and to the left into account, backward pass the rest
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = 0;
+                if (grid.isWalkable(x, y)) {
+                    value = Math.min(MAX_CLEARANCE, 1 + Math.min(
+                            Math.min(get(x - 1, y), get(x - 1, y - 1)),
+                            Math.min(get(x, y - 1), get(x + 1, y - 1))));
+                }
+                clearance[y * width + x] = (byte) value;
+            }
+        }
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int value = get(x, y);
+                if (value > 0) {
+                    value = Math.min(value, 1 + Math.min(
+                            Math.min(get(x + 1, y), get(x + 1, y + 1)),
+                            Math.min(get(x, y + 1), get(x - 1, y + 1))));
+                    clearance[y * width + x] = (byte) value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get cell's clearance.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return distance to the nearest wall in cells, 0 for walls and cells outside the grid
+     */
+    public int get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return 0;
+        }
+        return clearance[y * width + x];
+    }
+
+    /**
+     * Create grid where only cells with enough clearance are walkable.
+     *
+     * @param minClearance clearance needed by the agent
+     * @return navigation grid for the agent
+     */
+    public NavigationGrid createGrid(int minClearance) {
+        long[] words = new long[NavigationGrid.getWordCount(width, height)];
+        for (int bit = 0; bit < clearance.length; bit++) {
+            if (clearance[bit] < minClearance) {
+                words[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return new NavigationGrid(width, height, words);
+    }
+
+    /**
+     * Find the closest cell to the given one that has enough clearance.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @param minClearance clearance needed by the agent
+     * @param maxDistance how far in cells is searched
+     * @return closest cell with enough clearance, -1 if there is none within the distance
+     */
+    public int findClosestClearCell(int x, int y, int minClearance, int maxDistance) {
+        if (get(x, y) >= minClearance) {
+            return Grid.toCell(x, y);
+        }
+        // Check squares of growing size around the cell, closer ones first
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            for (int i = -distance; i <= distance; i++) {
+                if (get(x + i, y - distance) >= minClearance) {
+                    return Grid.toCell(x + i, y - distance);
+                }
+                if (get(x + i, y + distance) >= minClearance) {
+                    return Grid.toCell(x + i, y + distance);
+                }
+                if (get(x - distance, y + i) >= minClearance) {
+                    return Grid.toCell(x - distance, y + i);
+                }
+                if (get(x + distance, y + i) >= minClearance) {
+                    return Grid.toCell(x + distance, y + i);
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,292 @@
+package ee.taltech.server.ai;
+
+import com.esotericsoftware.minlog.Log;
+import ee.taltech.server.components.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Abstract graph for hierarchical path finding, built once from the grid and shared by every search.
+ * Grid is split into square clusters. Nodes are entrance cells on the cluster borders, edges are
+ * steps across a border and shortest walks between entrances of the same cluster.
+ */
+class ClusterGraph {
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+
+    private final int[] nodeCells;
+    private final int[][] clusterNodes; // Node IDs of every cluster
+
+    // Edges of node i are edgeTargets[edgeStart[i]] ... edgeTargets[edgeStart[i + 1] - 1]
+    private final int[] edgeStart;
+    private final int[] edgeTargets;
+    private final int[] edgeCosts;
+
+    /**
+     * Construct ClusterGraph.
+     *
+     * @param grid navigation grid
+     * @param clusterSize width and height of one cluster in cells
+     */
+    ClusterGraph(NavigationGrid grid, int clusterSize) {
+        long startTime = System.currentTimeMillis();
+        this.clusterSize = clusterSize;
+        this.clustersX = (Constants.MAX_X_NODE + clusterSize - 1) / clusterSize;
+        this.clustersY = (Constants.MAX_Y_NODE + clusterSize - 1) / clusterSize;
+
+        Builder builder = new Builder(grid);
+        builder.addEntrances();
+        builder.addClusterWalks();
+
+        this.nodeCells = builder.nodeCells.stream().mapToInt(Integer::intValue).toArray();
+        this.clusterNodes = new int[clustersX * clustersY][];
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            clusterNodes[cluster] = builder.clusterNodes.get(cluster).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.edgeStart = new int[nodeCells.length + 1];
+        int edgeCount = 0;
+        for (int node = 0; node < nodeCells.length; node++) {
+            edgeStart[node] = edgeCount;
+            edgeCount += builder.edges.get(node).size();
+        }
+        edgeStart[nodeCells.length] = edgeCount;
+        this.edgeTargets = new int[edgeCount];
+        this.edgeCosts = new int[edgeCount];
+        for (int node = 0; node < nodeCells.length; node++) {
+            int edge = edgeStart[node];
+            for (long packed : builder.edges.get(node)) {
+                edgeTargets[edge] = (int) (packed >> 32);
+                edgeCosts[edge] = (int) packed;
+                edge++;
+            }
+        }
+        Log.info("Cluster graph built: " + nodeCells.length + " nodes, " + edgeCount + " edges in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * @return width and height of one cluster in cells
+     */
+    int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * @return number of nodes
+     */
+    int getNodeCount() {
+        return nodeCells.length;
+    }
+
+    /**
+     * Get the cluster that the cell is in.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return cluster's index
+     */
+    int getCluster(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    /**
+     * @param cluster cluster's index
+     * @return IDs of the entrance nodes in the cluster
+     */
+    int[] getClusterNodes(int cluster) {
+        return clusterNodes[cluster];
+    }
+
+    /**
+     * @param node node's ID
+     * @return node's cell
+     */
+    int getNodeCell(int node) {
+        return nodeCells[node];
+    }
+
+    /**
+     * @param node node's ID
+     * @return index of the node's first edge
+     */
+    int getEdgeStart(int node) {
+        return edgeStart[node];
+    }
+
+    /**
+     * @param node node's ID
+     * @return index after the node's last edge
+     */
+    int getEdgeEnd(int node) {
+        return edgeStart[node + 1];
+    }
+
+    /**
+     * @param edge edge's index
+     * @return node that the edge leads to
+     */
+    int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * @param edge edge's index
+     * @return number of cells walked along the edge
+     */
+    int getEdgeCost(int edge) {
+        return edgeCosts[edge];
+    }
+
+    /**
+     * Collects nodes and edges into lists before they are packed into arrays.
+     */
+    private class Builder {
+        private final NavigationGrid grid;
+        private final List<Integer> nodeCells = new ArrayList<>();
+        private final List<List<Integer>> clusterNodes = new ArrayList<>();
+        private final List<List<Long>> edges = new ArrayList<>(); // Target in the high and cost in the low bits
+        private final int[] nodeAt; // Node ID of every cell, -1 if the cell is not a node
+
+        /**
+         * Construct Builder.
+         *
+         * @param grid navigation grid
+         */
+        Builder(NavigationGrid grid) {
+            this.grid = grid;
+            this.nodeAt = new int[Constants.MAX_X_NODE * Constants.MAX_Y_NODE];
+            Arrays.fill(nodeAt, -1);
+            for (int i = 0; i < clustersX * clustersY; i++) {
+                clusterNodes.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Find entrances on every border between two clusters.
+         */
+        void addEntrances() {
+            for (int clusterY = 0; clusterY < clustersY; clusterY++) {
+                for (int clusterX = 0; clusterX < clustersX; clusterX++) {
+                    int left = clusterX * clusterSize;
+                    int bottom = clusterY * clusterSize;
+                    int right = Math.min(left + clusterSize, Constants.MAX_X_NODE) - 1;
+                    int top = Math.min(bottom + clusterSize, Constants.MAX_Y_NODE) - 1;
+                    if (right + 1 < Constants.MAX_X_NODE) { // Border with the cluster on the right
+                        addBorderEntrances(right, bottom, 0, 1, top - bottom + 1, 1, 0);
+                    }
+                    if (top + 1 < Constants.MAX_Y_NODE) { // Border with the cluster above
+                        addBorderEntrances(left, top, 1, 0, right - left + 1, 0, 1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Find walkable runs along one border and add one or two entrances for each of them.
+         *
+         * @param startX first border cell's x on the near side
+         * @param startY first border cell's y on the near side
+         * @param alongX step along the border
+         * @param alongY step along the border
+         * @param length number of cells along the border
+         * @param acrossX step to the other cluster
+         * @param acrossY step to the other cluster
+         */
+        private void addBorderEntrances(int startX, int startY, int alongX, int alongY, int length,
+                                        int acrossX, int acrossY) {
+            int runStart = -1;
+            for (int i = 0; i <= length; i++) {
+                int x = startX + alongX * i;
+                int y = startY + alongY * i;
+                boolean open = i < length && grid.isWalkable(x, y)
+                        && grid.isWalkable(x + acrossX, y + acrossY);
+                if (open && runStart == -1) {
+                    runStart = i;
+                } else if (!open && runStart != -1) {
+                    int runEnd = i - 1;
+                    if (runEnd - runStart + 1 < Constants.HPA_WIDE_ENTRANCE) { // Narrow, one entrance in the middle
+                        addEntrance(startX, startY, alongX, alongY, (runStart + runEnd) / 2, acrossX, acrossY);
+                    } else { // Wide, entrances at both ends
+                        addEntrance(startX, startY, alongX, alongY, runStart, acrossX, acrossY);
+                        addEntrance(startX, startY, alongX, alongY, runEnd, acrossX, acrossY);
+                    }
+                    runStart = -1;
+                }
+            }
+        }
+
+        /**
+         * Add nodes on both sides of the border and the step between them.
+         *
+         * @param startX first border cell's x on the near side
+         * @param startY first border cell's y on the near side
+         * @param alongX step along the border
+         * @param alongY step along the border
+         * @param offset entrance's index along the border
+         * @param acrossX step to the other cluster
+         * @param acrossY step to the other cluster
+         */
+        private void addEntrance(int startX, int startY, int alongX, int alongY, int offset,
+                                 int acrossX, int acrossY) {
+            int x = startX + alongX * offset;
+            int y = startY + alongY * offset;
+            int near = getOrAddNode(x, y);
+            int far = getOrAddNode(x + acrossX, y + acrossY);
+            edges.get(near).add(edge(far, 1));
+            edges.get(far).add(edge(near, 1));
+        }
+
+        /**
+         * Get node of the cell, adding it if the cell is not a node yet.
+         *
+         * @param x cell's x
+         * @param y cell's y
+         * @return node's ID
+         */
+        private int getOrAddNode(int x, int y) {
+            int cell = Grid.toCell(x, y);
+            if (nodeAt[cell] == -1) {
+                nodeAt[cell] = nodeCells.size();
+                nodeCells.add(cell);
+                clusterNodes.get(getCluster(x, y)).add(nodeAt[cell]);
+                edges.add(new ArrayList<>());
+            }
+            return nodeAt[cell];
+        }
+
+        /**
+         * Connect entrances of every cluster with the lengths of the shortest walks inside the cluster.
+         */
+        void addClusterWalks() {
+            ClusterSearch search = new ClusterSearch(clusterSize);
+            for (int cluster = 0; cluster < clusterNodes.size(); cluster++) {
+                List<Integer> nodes = clusterNodes.get(cluster);
+                for (int node : nodes) {
+                    int cell = nodeCells.get(node);
+                    search.search(grid, Grid.cellX(cell), Grid.cellY(cell), clusterSize);
+                    for (int other : nodes) {
+                        int otherCell = nodeCells.get(other);
+                        int distance = search.getDistance(Grid.cellX(otherCell), Grid.cellY(otherCell));
+                        if (other != node && distance > 0) {
+                            edges.get(node).add(edge(other, distance));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Pack edge into a long.
+         *
+         * @param target node that the edge leads to
+         * @param cost number of cells walked along the edge
+         * @return packed edge
+         */
+        private static long edge(int target, int cost) {
+            return ((long) target << 32) | cost;
+        }
+    }
+}
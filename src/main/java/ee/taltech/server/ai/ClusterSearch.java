@@ -0,0 +1,102 @@
+package ee.taltech.server.ai;
+
+import ee.taltech.server.components.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search that stays inside one cluster.
+ * Arrays are reused between searches, so one instance can only be used by one thread.
+ */
+class ClusterSearch {
+    private static final int[][] NEIGHBOURS = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
+
+    private final int[] distance; // By cell's index inside the cluster, -1 if not reached
+    private final int[] parent;
+    private final int[] queue;
+    private int left;
+    private int bottom;
+    private int width;
+    private int height;
+
+    /**
+     * Construct ClusterSearch.
+     *
+     * @param clusterSize width and height of one cluster in cells
+     */
+    ClusterSearch(int clusterSize) {
+        this.distance = new int[clusterSize * clusterSize];
+        this.parent = new int[clusterSize * clusterSize];
+        this.queue = new int[clusterSize * clusterSize];
+    }
+
+    /**
+     * Find distances from the cell to every cell of its cluster.
+     *
+     * @param grid navigation grid
+     * @param x source cell's x
+     * @param y source cell's y
+     * @param clusterSize width and height of one cluster in cells
+     */
+    void search(NavigationGrid grid, int x, int y, int clusterSize) {
+        left = x / clusterSize * clusterSize;
+        bottom = y / clusterSize * clusterSize;
+        width = Math.min(clusterSize, Constants.MAX_X_NODE - left);
+        height = Math.min(clusterSize, Constants.MAX_Y_NODE - bottom);
+        Arrays.fill(distance, -1);
+
+        int head = 0;
+        int tail = 0;
+        int source = (y - bottom) * width + (x - left);
+        distance[source] = 0;
+        parent[source] = -1;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            int currentX = current % width;
+            int currentY = current / width;
+            for (int[] neighbour : NEIGHBOURS) {
+                int nextX = currentX + neighbour[0];
+                int nextY = currentY + neighbour[1];
+                if (nextX < 0 || nextX >= width || nextY < 0 || nextY >= height
+                        || !grid.isWalkable(left + nextX, bottom + nextY)) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (distance[next] == -1) {
+                    distance[next] = distance[current] + 1;
+                    parent[next] = current;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get distance from the source to the cell.
+     *
+     * @param x cell's x, must be in the searched cluster
+     * @param y cell's y, must be in the searched cluster
+     * @return number of steps, -1 if the cell can not be reached inside the cluster
+     */
+    int getDistance(int x, int y) {
+        return distance[(y - bottom) * width + (x - left)];
+    }
+
+    /**
+     * Get path from the source to the cell.
+     *
+     * @param x cell's x, must be reached
+     * @param y cell's y, must be reached
+     * @return path as cells from the first step to the given cell
+     */
+    int[] getPath(int x, int y) {
+        int current = (y - bottom) * width + (x - left);
+        int[] path = new int[distance[current]];
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = Grid.toCell(left + current % width, bottom + current / width);
+            current = parent[current];
+        }
+        return path;
+    }
+}
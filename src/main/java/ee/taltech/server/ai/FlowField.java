@@ -0,0 +1,275 @@
+package ee.taltech.server.ai;
+
+import java.util.Arrays;
+
+/**
+ * Distances to one target from every cell around it, shared by all mobs that chase the target.
+ * Each mob reads its next step from the field instead of searching its own path.
+ * Steps are the same as the path searches': 4 directions, or 8 with octile costs when the search steps diagonally.
+ * Diagonal steps may not cut wall corners.
+ * Fields hold arrays for their whole window, so the game reuses them for other targets.
+ */
+public class FlowField {
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14; // Approximately 10 * sqrt(2)
+    // Straight neighbours first, 4-connected fields only use them
+    private static final int[][] NEIGHBOURS = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int NOT_COMPUTED = Integer.MIN_VALUE; // Refresh slots can be before the first tick
+    public static final int NO_TARGET = -1;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final NavigationGrid grid;
+    private final int radius;
+    private final int refreshTicks;
+    private final int neighbourCount; // 4 or 8
+    private final int size;
+    private final int[] distance; // By cell's index inside the field's window, UNREACHED if not reached
+    private final boolean[] walkable; // Window's cells with a border of walls, copied from the grid for the search
+    // For every neighbour: offset of its index in the window and in the walkable array, and the step's cost
+    private final int[] windowOffsets;
+    private final int[] walkableOffsets;
+    private final int[] costs;
+    // Cells waiting to be expanded, by their distance modulo the bucket count. Every waiting cell is
+    // at most one step further than the closest one, so the buckets never mix different distances.
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+    private int targetId;
+    private int left;
+    private int bottom;
+    private int targetX;
+    private int targetY;
+    private int computedTick;
+    private int lastUsedTick;
+
+    /**
+     * Construct FlowField.
+     *
+     * @param grid grid of the cells the mobs can walk on
+     * @param radius how many cells around the target are covered
+     * @param refreshTicks how many ticks a field is used before it is recomputed
+     * @param diagonal can mobs step diagonally
+     */
+    public FlowField(NavigationGrid grid, int radius, int refreshTicks, boolean diagonal) {
+        this.grid = grid;
+        this.radius = radius;
+        this.refreshTicks = refreshTicks;
+        this.neighbourCount = diagonal ? NEIGHBOURS.length : 4;
+        this.size = 2 * radius + 1;
+        this.distance = new int[size * size];
+        this.walkable = new boolean[(size + 2) * (size + 2)];
+        this.windowOffsets = new int[NEIGHBOURS.length];
+        this.walkableOffsets = new int[NEIGHBOURS.length];
+        this.costs = new int[NEIGHBOURS.length];
+        for (int i = 0; i < NEIGHBOURS.length; i++) {
+            windowOffsets[i] = NEIGHBOURS[i][1] * size + NEIGHBOURS[i][0];
+            walkableOffsets[i] = NEIGHBOURS[i][1] * (size + 2) + NEIGHBOURS[i][0];
+            boolean diagonalStep = NEIGHBOURS[i][0] != 0 && NEIGHBOURS[i][1] != 0;
+            costs[i] = diagonalStep ? DIAGONAL_COST : STRAIGHT_COST;
+        }
+        this.buckets = new int[DIAGONAL_COST + 1][size];
+        this.bucketSizes = new int[DIAGONAL_COST + 1];
+        this.targetId = NO_TARGET;
+        this.computedTick = NOT_COMPUTED;
+    }
+
+    /**
+     * Start using the field for a new target, the field is empty until it is computed.
+     *
+     * @param targetId ID of the chased player, -1 when the field is not in use
+     * @param tick current tick
+     */
+    public void assign(int targetId, int tick) {
+        this.targetId = targetId;
+        this.computedTick = NOT_COMPUTED;
+        this.lastUsedTick = tick;
+    }
+
+    /**
+     * Get ID of the chased player.
+     *
+     * @return player's ID, -1 if the field is not in use
+     */
+    public int getTargetId() {
+        return targetId;
+    }
+
+    /**
+     * Mark the field as read by a mob.
+     *
+     * @param tick current tick
+     */
+    public void markUsed(int tick) {
+        lastUsedTick = tick;
+    }
+
+    /**
+     * Get the tick when a mob last read the field.
+     *
+     * @return tick
+     */
+    public int getLastUsedTick() {
+        return lastUsedTick;
+    }
+
+    /**
+     * Has the field been computed for its current target.
+     *
+     * @return true if the field can be read
+     */
+    public boolean isComputed() {
+        return computedTick != NOT_COMPUTED;
+    }
+
+    /**
+     * Should the field be recomputed.
+     *
+     * @param tick current tick
+     * @return true if the field has not been computed or is old
+     */
+    public boolean isRefreshDue(int tick) {
+        return computedTick == NOT_COMPUTED || tick - computedTick >= refreshTicks;
+    }
+
+    /**
+     * Recompute the field if the target has moved to another cell.
+     * Refreshes are spread over the ticks by target's ID, so fields created together are not refreshed together.
+     *
+     * @param x target cell's x
+     * @param y target cell's y
+     * @param tick current tick
+     * @return true if the field was computed, false if the target is still in the same cell
+     */
+    public boolean update(int x, int y, int tick) {
+        boolean moved = computedTick == NOT_COMPUTED || x != targetX || y != targetY;
+        if (moved) {
+            compute(x, y);
+        }
+        computedTick = tick - Math.floorMod(tick + targetId, refreshTicks); // Last tick of target's refresh slot
+        return moved;
+    }
+
+    /**
+     * Get the neighbouring cell that is on the shortest way to the target.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return next cell, the same cell if it is the target, -1 if the cell is not in the field
+     */
+    public int getNextCell(int x, int y) {
+        int current = getDistance(x, y);
+        if (current == UNREACHED) {
+            return -1;
+        }
+        int next = Grid.toCell(x, y);
+        if (current == 0) { // Already at the target
+            return next;
+        }
+        int best = UNREACHED;
+        for (int i = 0; i < neighbourCount; i++) {
+            int[] neighbour = NEIGHBOURS[i];
+            int neighbourX = x + neighbour[0];
+            int neighbourY = y + neighbour[1];
+            int neighbourDistance = getDistance(neighbourX, neighbourY);
+            if (neighbourDistance == UNREACHED) {
+                continue;
+            }
+            boolean diagonal = neighbour[0] != 0 && neighbour[1] != 0;
+            if (diagonal && (!grid.isWalkable(neighbourX, y) || !grid.isWalkable(x, neighbourY))) {
+                continue; // Would cut the corner of a wall
+            }
+            int throughNeighbour = neighbourDistance + (diagonal ? DIAGONAL_COST : STRAIGHT_COST);
+            if (throughNeighbour < best) {
+                best = throughNeighbour;
+                next = Grid.toCell(neighbourX, neighbourY);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Dijkstra's search outwards from the target, limited to the field's window.
+     * Step costs are small integers, so a bucket queue is used instead of a heap.
+     *
+     * @param x target cell's x
+     * @param y target cell's y
+     */
+    private void compute(int x, int y) {
+        targetX = x;
+        targetY = y;
+        left = x - radius;
+        bottom = y - radius;
+        Arrays.fill(distance, UNREACHED);
+        if (!grid.isWalkable(x, y)) {
+            return;
+        }
+        int stride = size + 2;
+        for (int windowY = 0; windowY < size; windowY++) {
+            for (int windowX = 0; windowX < size; windowX++) {
+                walkable[(windowY + 1) * stride + windowX + 1] = grid.isWalkable(left + windowX, bottom + windowY);
+            }
+        }
+
+        int target = radius * size + radius;
+        distance[target] = 0;
+        add(target, 0);
+        int waiting = 1;
+        for (int current = 0; waiting > 0; current++) {
+            int bucket = current % buckets.length;
+            // Cells added to the bucket while it is expanded are further, so they go to other buckets
+            while (bucketSizes[bucket] > 0) {
+                int cell = buckets[bucket][--bucketSizes[bucket]];
+                waiting--;
+                if (distance[cell] != current) { // Was reached with a shorter distance after it was added
+                    continue;
+                }
+                int padded = (cell / size + 1) * stride + cell % size + 1;
+                for (int i = 0; i < neighbourCount; i++) {
+                    if (!walkable[padded + walkableOffsets[i]]) {
+                        continue;
+                    }
+                    if (costs[i] == DIAGONAL_COST && (!walkable[padded + NEIGHBOURS[i][0]]
+                            || !walkable[padded + NEIGHBOURS[i][1] * stride])) {
+                        continue; // Would cut the corner of a wall
+                    }
+                    int next = cell + windowOffsets[i];
+                    int newDistance = current + costs[i];
+                    if (newDistance < distance[next]) {
+                        distance[next] = newDistance;
+                        add(next, newDistance);
+                        waiting++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add cell to the bucket of its distance.
+     *
+     * @param cell cell's index inside the window
+     * @param cellDistance cell's distance to the target
+     */
+    private void add(int cell, int cellDistance) {
+        int bucket = cellDistance % buckets.length;
+        if (bucketSizes[bucket] == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], 2 * buckets[bucket].length);
+        }
+        buckets[bucket][bucketSizes[bucket]++] = cell;
+    }
+
+    /**
+     * Get cell's distance to the target.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return cost of the shortest way, UNREACHED if the cell is outside the field or can not reach the target
+     */
+    private int getDistance(int x, int y) {
+        int windowX = x - left;
+        int windowY = y - bottom;
+        if (computedTick == NOT_COMPUTED || windowX < 0 || windowX >= size || windowY < 0 || windowY >= size) {
+            return UNREACHED;
+        }
+        return distance[windowY * size + windowX];
+    }
+}
@@ -1,50 +1,126 @@
 package ee.taltech.server.ai;
 
 import com.esotericsoftware.minlog.Log;
+import ee.taltech.server.components.Constants;
 
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class Grid {
-    public static int[][] grid;
+    public static final String NAVIGATION_FILE = "grid.nav";
+    public static NavigationGrid grid;
 
     /**
      * Set grid.
      *
      * @param grid generated grid
      */
-    public static void setGrid(int[][] grid) {
+    public static void setGrid(NavigationGrid grid) {
         Grid.grid = grid;
     }
 
+    /**
+     * Is the cell inside the grid and not a wall.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return true if the cell is walkable
+     */
+    public static boolean isWalkable(int x, int y) {
+        return grid.isWalkable(x, y);
+    }
+
+    /**
+     * Get cell's index from its coordinates.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return index of the cell
+     */
+    public static int toCell(int x, int y) {
+        return y * Constants.MAX_X_NODE + x;
+    }
+
+    /**
+     * Get cell's x coordinate from its index.
+     *
+     * @param cell index of the cell
+     * @return cell's x
+     */
+    public static int cellX(int cell) {
+        return cell % Constants.MAX_X_NODE;
+    }
+
+    /**
+     * Get cell's y coordinate from its index.
+     *
+     * @param cell index of the cell
+     * @return cell's y
+     */
+    public static int cellY(int cell) {
+        return cell / Constants.MAX_X_NODE;
+    }
+
     /**
      * Read grid from file.
+     * Binary 'grid.nav' next to the server is memory-mapped, otherwise the one in resources is used
+     * and if neither exists the text 'grid.txt' is parsed.
      *
-     * @return read grid as a 2d array
+     * @return read grid
      */
-    public static int[][] readGridFromFile() {
-        int[][] grid = new int[1200][1200];
+    public static NavigationGrid readGridFromFile() {
+        try {
+            Path navigationFile = Path.of(NAVIGATION_FILE);
+            if (Files.isRegularFile(navigationFile)) {
+                NavigationGrid grid = NavigationGrid.mapBinary(navigationFile);
+                Log.info("Successfully mapped grid from '" + NAVIGATION_FILE + "'!");
+                return grid;
+            }
+            URL navigationResource = Grid.class.getResource("/" + NAVIGATION_FILE);
+            if (navigationResource != null) {
+                NavigationGrid grid = "file".equals(navigationResource.getProtocol())
+                        ? NavigationGrid.mapBinary(Path.of(navigationResource.toURI()))
+                        : readResource(navigationResource);
+                Log.info("Successfully read grid from '" + NAVIGATION_FILE + "'!");
+                return grid;
+            }
+        } catch (IOException | URISyntaxException e) {
+            Log.info("Failed to read '" + NAVIGATION_FILE + "', reading 'grid.txt' instead.");
+        }
+        return readTextGrid();
+    }
 
+    /**
+     * Read binary grid from a resource that is not a file, e.g. inside a jar.
+     *
+     * @param resource URL of the resource
+     * @return read grid
+     * @throws IOException if reading fails
+     */
+    private static NavigationGrid readResource(URL resource) throws IOException {
+        try (InputStream inputStream = resource.openStream()) {
+            return NavigationGrid.readBinary(inputStream);
+        }
+    }
+
+    /**
+     * Read text grid from resources.
+     *
+     * @return read grid, every cell is walkable if reading fails
+     */
+    private static NavigationGrid readTextGrid() {
         try (InputStream inputStream = Grid.class.getResourceAsStream("/grid.txt");
              BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            int row = 0;
-
-            while ((line = br.readLine()) != null && row < 1200) {
-                for (int col = 0; col < 1200; col++) {
-                    char c = line.charAt(col);
-                    if (c == '1') {
-                        grid[row][col] = 1;
-                    } else if (c == '0') {
-                        grid[row][col] = 0;
-                    }
-                }
-                row++;
-            }
+            NavigationGrid grid = NavigationGrid.readText(br, Constants.MAX_X_NODE, Constants.MAX_Y_NODE);
             Log.info("Successfully read grid into array!");
+            return grid;
         } catch (IOException e) {
             Log.info("Failed to read grid! Do you have 'grid.txt' in assets folder?");
+            return new NavigationGrid(Constants.MAX_X_NODE, Constants.MAX_Y_NODE,
+                    new long[NavigationGrid.getWordCount(Constants.MAX_X_NODE, Constants.MAX_Y_NODE)]);
         }
-
-        return grid;
     }
 }
@@ -0,0 +1,43 @@
+package ee.taltech.server.ai;
+
+import ee.taltech.server.components.Constants;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Build step that converts the text grid into the binary navigation file the server maps at startup.
+ * Run by the 'convertGrid' Gradle task.
+ */
+public class GridConverter {
+
+    private GridConverter() {
+    }
+
+    /**
+     * Convert the grid.
+     *
+     * @param args path of 'grid.txt' and path of the binary file that is written
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: GridConverter <grid.txt> <grid.nav>");
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+
+        NavigationGrid grid;
+        try (BufferedReader reader = Files.newBufferedReader(source)) {
+            grid = NavigationGrid.readText(reader, Constants.MAX_X_NODE, Constants.MAX_Y_NODE);
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (OutputStream output = Files.newOutputStream(target)) {
+            grid.writeBinary(output);
+        }
+        System.out.println("Converted " + source + " to " + target + " (" + Files.size(target) + " bytes)");
+    }
+}
@@ -0,0 +1,164 @@
+package ee.taltech.server.ai;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical path finding (HPA*).
+ * Whole route is searched over the shared cluster graph, so the cost does not grow with the distance,
+ * but only the first part of it, up to the next cluster, is turned into cells.
+ * Mob asks for the next part when it gets there.
+ */
+public class HierarchicalPathFinding implements PathFinder {
+    private final NavigationGrid grid;
+    private final ClusterGraph graph;
+    private final SearchState state;
+    private final ClusterSearch sourceSearch;
+    private final ClusterSearch destinationSearch;
+    private final int sourceNode;
+    private final int destinationNode;
+    private int srcX;
+    private int srcY;
+    private int dstX;
+    private int dstY;
+
+    /**
+     * Construct HierarchicalPathFinding.
+     *
+     * @param grid grid of the cells the agent can walk on
+     * @param graph cluster graph of the same grid
+     */
+    HierarchicalPathFinding(NavigationGrid grid, ClusterGraph graph) {
+        this.grid = grid;
+        this.graph = graph;
+        // Source and destination are added as two extra nodes after the graph's own
+        this.sourceNode = graph.getNodeCount();
+        this.destinationNode = graph.getNodeCount() + 1;
+        this.state = new SearchState(graph.getNodeCount() + 2);
+        this.sourceSearch = new ClusterSearch(graph.getClusterSize());
+        this.destinationSearch = new ClusterSearch(graph.getClusterSize());
+    }
+
+    /**
+     * Start finding path from source to destination.
+     *
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     */
+    @Override
+    public void start(int srcX, int srcY, int dstX, int dstY) {
+        this.srcX = srcX;
+        this.srcY = srcY;
+        this.dstX = dstX;
+        this.dstY = dstY;
+        state.start();
+    }
+
+    /**
+     * Find the path. The cluster graph is small, so the search is never suspended.
+     *
+     * @param maxExpansions not used
+     * @return path as cells from the first step to the destination or to the next cluster on the way,
+     *         NO_PATH if there is none
+     */
+    @Override
+    public int[] resume(int maxExpansions) {
+        if (!grid.isWalkable(srcX, srcY) || !grid.isWalkable(dstX, dstY)) {
+            return NO_PATH;
+        }
+        int sourceCluster = graph.getCluster(srcX, srcY);
+        int destinationCluster = graph.getCluster(dstX, dstY);
+        sourceSearch.search(grid, srcX, srcY, graph.getClusterSize());
+        if (sourceCluster == destinationCluster && sourceSearch.getDistance(dstX, dstY) != -1) {
+            return sourceSearch.getPath(dstX, dstY); // Reachable without leaving the cluster
+        }
+        destinationSearch.search(grid, dstX, dstY, graph.getClusterSize());
+
+        state.open(sourceNode, 0, -1, AStarPathFinding.heuristic(srcX, srcY, dstX, dstY));
+        while (!state.isOpenEmpty()) {
+            int current = state.pop();
+            if (current == destinationNode) {
+                return refineFirstSegment();
+            }
+            state.close(current);
+
+            if (current == sourceNode) {
+                for (int node : graph.getClusterNodes(sourceCluster)) {
+                    int cell = graph.getNodeCell(node);
+                    relax(current, node, sourceSearch.getDistance(Grid.cellX(cell), Grid.cellY(cell)), dstX, dstY);
+                }
+                continue;
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                relax(current, graph.getEdgeTarget(edge), graph.getEdgeCost(edge), dstX, dstY);
+            }
+            int cell = graph.getNodeCell(current);
+            if (graph.getCluster(Grid.cellX(cell), Grid.cellY(cell)) == destinationCluster) {
+                relax(current, destinationNode,
+                        destinationSearch.getDistance(Grid.cellX(cell), Grid.cellY(cell)), dstX, dstY);
+            }
+        }
+        return NO_PATH;
+    }
+
+    /**
+     * Get number of graph nodes expanded since the search started.
+     *
+     * @return expanded nodes
+     */
+    @Override
+    public int getExpansions() {
+        return state.getExpansions();
+    }
+
+    /**
+     * Open or update the node if it is cheaper to reach through the current one.
+     *
+     * @param current node that is expanded
+     * @param next    neighbouring node
+     * @param cost    cells walked from current to next, -1 if there is no walk
+     * @param dstX    destination node's x
+     * @param dstY    destination node's y
+     */
+    private void relax(int current, int next, int cost, int dstX, int dstY) {
+        if (cost < 0 || state.isClosed(next)) {
+            return;
+        }
+        int newGScore = state.getGScore(current) + cost;
+        int cell = next == destinationNode ? Grid.toCell(dstX, dstY) : graph.getNodeCell(next);
+        int fScore = newGScore + AStarPathFinding.heuristic(Grid.cellX(cell), Grid.cellY(cell), dstX, dstY);
+        if (!state.isSeen(next)) {
+            state.open(next, newGScore, current, fScore);
+        } else if (newGScore < state.getGScore(next)) {
+            state.decrease(next, newGScore, current, fScore);
+        }
+    }
+
+    /**
+     * Turn the route from the source to its first entrance into cells,
+     * including the step into the next cluster.
+     *
+     * @return path as cells from the first step
+     */
+    private int[] refineFirstSegment() {
+        int second = destinationNode;
+        int first = state.getParent(second);
+        while (state.getParent(first) != sourceNode) {
+            second = first;
+            first = state.getParent(first);
+        }
+        int firstCell = graph.getNodeCell(first);
+        int[] path = sourceSearch.getPath(Grid.cellX(firstCell), Grid.cellY(firstCell));
+
+        if (second != destinationNode) {
+            int secondCell = graph.getNodeCell(second);
+            if (Math.abs(Grid.cellX(secondCell) - Grid.cellX(firstCell))
+                    + Math.abs(Grid.cellY(secondCell) - Grid.cellY(firstCell)) == 1) { // Step across the border
+                path = Arrays.copyOf(path, path.length + 1);
+                path[path.length - 1] = secondCell;
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,185 @@
+package ee.taltech.server.ai;
+
+/**
+ * Jump Point Search for the 4-connected grid.
+ * Straight runs without decisions are skipped, only cells where the path may have to turn are put into
+ * the open set. Horizontal jumps are read from the shared JumpTable, vertical ones are walked.
+ * Cells that the jumps walk and read from the table count as expansions too, so budgets limit the real work.
+ */
+public class JumpPointSearch implements PathFinder {
+    private static final int[][] DIRECTIONS = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
+
+    private final NavigationGrid grid;
+    private final JumpTable jumps;
+    private final SearchState state;
+    private int jumpedCells; // Cells walked or read from the jump table since the search started
+    private int source;
+    private int destination;
+    private int dstX;
+    private int dstY;
+
+    /**
+     * Construct JumpPointSearch.
+     *
+     * @param grid grid of the cells the agent can walk on
+     * @param jumps precomputed horizontal jumps of the same grid
+     */
+    JumpPointSearch(NavigationGrid grid, JumpTable jumps) {
+        this.grid = grid;
+        this.jumps = jumps;
+        this.state = new SearchState();
+    }
+
+    /**
+     * Start finding path from source to destination.
+     *
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     */
+    @Override
+    public void start(int srcX, int srcY, int dstX, int dstY) {
+        this.dstX = dstX;
+        this.dstY = dstY;
+        this.source = Grid.toCell(srcX, srcY);
+        this.destination = Grid.toCell(dstX, dstY);
+        state.start();
+        jumpedCells = 0;
+        state.open(source, 0, -1, AStarPathFinding.heuristic(srcX, srcY, dstX, dstY));
+    }
+
+    /**
+     * Continue the started search. Only jump points are expanded, but cells jumped over are counted as well.
+     * Search is suspended after the expansion that uses up the budget, one jump can go over it.
+     *
+     * @param maxExpansions number of expanded jump points and jumped cells before the search is suspended
+     * @return path as cells from the first step to the destination, NO_PATH if there is none,
+     *         null if the search was suspended
+     */
+    @Override
+    public int[] resume(int maxExpansions) {
+        int expansionsBefore = getExpansions();
+        while (getExpansions() - expansionsBefore < maxExpansions && !state.isOpenEmpty()) {
+            int current = state.pop();
+            if (current == destination) {
+                return buildPath(source, destination);
+            }
+            state.close(current);
+
+            int currentX = Grid.cellX(current);
+            int currentY = Grid.cellY(current);
+            int parent = state.getParent(current);
+            int fromX = parent == -1 ? 0 : Integer.signum(currentX - Grid.cellX(parent));
+            int fromY = parent == -1 ? 0 : Integer.signum(currentY - Grid.cellY(parent));
+            for (int[] direction : DIRECTIONS) {
+                // Never go back, and keep going straight or turn
+                if (direction[0] == -fromX && direction[1] == -fromY) {
+                    continue;
+                }
+                int jumpPoint = jump(currentX + direction[0], currentY + direction[1], direction[0], direction[1]);
+                if (jumpPoint == -1 || state.isClosed(jumpPoint)) {
+                    continue;
+                }
+                int x = Grid.cellX(jumpPoint);
+                int y = Grid.cellY(jumpPoint);
+                int newGScore = state.getGScore(current) + Math.abs(x - currentX) + Math.abs(y - currentY);
+                int fScore = newGScore + AStarPathFinding.heuristic(x, y, dstX, dstY);
+                if (!state.isSeen(jumpPoint)) {
+                    state.open(jumpPoint, newGScore, current, fScore);
+                } else if (newGScore < state.getGScore(jumpPoint)) {
+                    state.decrease(jumpPoint, newGScore, current, fScore);
+                }
+            }
+        }
+        return state.isOpenEmpty() ? NO_PATH : null;
+    }
+
+    /**
+     * Get number of jump points expanded and cells jumped since the search started.
+     *
+     * @return expanded jump points and jumped cells
+     */
+    @Override
+    public int getExpansions() {
+        return state.getExpansions() + jumpedCells;
+    }
+
+    /**
+     * Jump from the cell in the direction until a jump point or a wall.
+     *
+     * @param x  first cell's x
+     * @param y  first cell's y
+     * @param dx horizontal direction
+     * @param dy vertical direction
+     * @return jump point's cell, -1 if there is none
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        if (dx != 0) {
+            return jumpHorizontally(x, y, dx);
+        }
+        while (grid.isWalkable(x, y)) {
+            jumpedCells++;
+            if (x == dstX && y == dstY) {
+                return Grid.toCell(x, y);
+            }
+            // Side is open here, but was blocked one step back
+            if (grid.isWalkable(x - 1, y) && !grid.isWalkable(x - 1, y - dy)
+                    || grid.isWalkable(x + 1, y) && !grid.isWalkable(x + 1, y - dy)) {
+                return Grid.toCell(x, y);
+            }
+            // Path may have to turn here to reach a horizontal jump point
+            if (jumpHorizontally(x + 1, y, 1) != -1 || jumpHorizontally(x - 1, y, -1) != -1) {
+                return Grid.toCell(x, y);
+            }
+            y += dy;
+        }
+        return -1;
+    }
+
+    /**
+     * Jump horizontally using the precomputed stops.
+     *
+     * @param x  first cell's x
+     * @param y  row
+     * @param dx horizontal direction
+     * @return jump point's cell, -1 if there is none
+     */
+    private int jumpHorizontally(int x, int y, int dx) {
+        jumpedCells++;
+        int stop = jumps.getStop(x, y, dx);
+        if (stop == JumpTable.BLOCKED) {
+            return -1;
+        }
+        int stopX = stop >> 1;
+        if (y == dstY && (dstX - x) * dx >= 0 && (stopX - dstX) * dx >= 0) { // Destination is on the way
+            return Grid.toCell(dstX, dstY);
+        }
+        return (stop & 1) == 1 ? Grid.toCell(stopX, y) : -1;
+    }
+
+    /**
+     * Follow parents from the destination back to the source and fill in the cells between jump points.
+     *
+     * @param source      source cell, not included in the path
+     * @param destination destination cell
+     * @return path from the first step to the destination
+     */
+    private int[] buildPath(int source, int destination) {
+        int length = state.getGScore(destination);
+        int[] path = new int[length];
+        for (int point = destination; point != source; point = state.getParent(point)) {
+            int from = state.getParent(point);
+            int x = Grid.cellX(point);
+            int y = Grid.cellY(point);
+            int stepX = Integer.signum(x - Grid.cellX(from));
+            int stepY = Integer.signum(y - Grid.cellY(from));
+            while (Grid.toCell(x, y) != from) { // Jump points are always on a straight line
+                path[--length] = Grid.toCell(x, y);
+                x -= stepX;
+                y -= stepY;
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,84 @@
+package ee.taltech.server.ai;
+
+import ee.taltech.server.components.Constants;
+
+/**
+ * Precomputed horizontal jumps for Jump Point Search, built once from the grid and shared by every search.
+ * For every cell and horizontal direction it stores where a jump starting from that cell stops:
+ * the first cell with a forced neighbour, or the last walkable cell before a wall.
+ */
+class JumpTable {
+    static final int BLOCKED = -1;
+
+    private final int[] right;
+    private final int[] left;
+
+    /**
+     * Construct JumpTable.
+     *
+     * @param grid navigation grid
+     */
+    JumpTable(NavigationGrid grid) {
+        int cells = Constants.MAX_X_NODE * Constants.MAX_Y_NODE;
+        this.right = new int[cells];
+        this.left = new int[cells];
+        for (int y = 0; y < Constants.MAX_Y_NODE; y++) {
+            fillRow(grid, y, 1, right);
+            fillRow(grid, y, -1, left);
+        }
+    }
+
+    /**
+     * Get where a horizontal jump starting from the cell stops.
+     * Stop's x is the value shifted right by one, lowest bit tells if the stop is a jump point.
+     *
+     * @param x  start cell's x
+     * @param y  start cell's y
+     * @param dx 1 for right, -1 for left
+     * @return encoded stop, BLOCKED if the start cell is not walkable
+     */
+    int getStop(int x, int y, int dx) {
+        if (x < 0 || x >= Constants.MAX_X_NODE) {
+            return BLOCKED;
+        }
+        return (dx > 0 ? right : left)[Grid.toCell(x, y)];
+    }
+
+    /**
+     * Fill stops for one row, scanning against the jump direction so every cell can reuse the next one.
+     *
+     * @param grid  navigation grid
+     * @param y     row
+     * @param dx    jump direction
+     * @param stops stops for the direction
+     */
+    private static void fillRow(NavigationGrid grid, int y, int dx, int[] stops) {
+        int x = dx > 0 ? Constants.MAX_X_NODE - 1 : 0;
+        for (; x >= 0 && x < Constants.MAX_X_NODE; x -= dx) {
+            int cell = Grid.toCell(x, y);
+            if (!grid.isWalkable(x, y)) {
+                stops[cell] = BLOCKED;
+            } else if (hasForcedNeighbour(grid, x, y, dx)) {
+                stops[cell] = x << 1 | 1;
+            } else if (!grid.isWalkable(x + dx, y)) {
+                stops[cell] = x << 1; // Wall ahead
+            } else {
+                stops[cell] = stops[Grid.toCell(x + dx, y)];
+            }
+        }
+    }
+
+    /**
+     * Can a horizontal jump turn vertically here, because the cell behind it blocks that way.
+     *
+     * @param grid navigation grid
+     * @param x    cell's x
+     * @param y    cell's y
+     * @param dx   jump direction
+     * @return true if the cell is a jump point
+     */
+    private static boolean hasForcedNeighbour(NavigationGrid grid, int x, int y, int dx) {
+        return grid.isWalkable(x, y - 1) && !grid.isWalkable(x - dx, y - 1)
+                || grid.isWalkable(x, y + 1) && !grid.isWalkable(x - dx, y + 1);
+    }
+}
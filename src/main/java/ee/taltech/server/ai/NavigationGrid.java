@@ -0,0 +1,161 @@
+package ee.taltech.server.ai;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Walkable cells of the map packed into bits, one bit per cell where 1 is a wall.
+ * The binary file made by GridConverter contains the header (magic, width, height) followed by the packed words,
+ * so it can be memory-mapped and copied straight into the words.
+ */
+public class NavigationGrid {
+    static final int MAGIC = 0x4E415631; // "NAV1"
+
+    private final int width;
+    private final int height;
+    private final long[] words;
+
+    /**
+     * Construct NavigationGrid.
+     *
+     * @param width grid's width in cells
+     * @param height grid's height in cells
+     * @param words packed cells, row after row
+     */
+    NavigationGrid(int width, int height, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.words = words;
+    }
+
+    /**
+     * Get grid's width.
+     *
+     * @return width in cells
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get grid's height.
+     *
+     * @return height in cells
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Is the cell inside the grid and not a wall.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return true if the cell is walkable
+     */
+    public boolean isWalkable(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        int bit = y * width + x;
+        return (words[bit >>> 6] & (1L << bit)) == 0; // Shift uses only the lowest 6 bits
+    }
+
+    /**
+     * Get number of words needed for the grid.
+     *
+     * @param width grid's width in cells
+     * @param height grid's height in cells
+     * @return number of longs
+     */
+    static int getWordCount(int width, int height) {
+        return (width * height + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Read text grid, where every line is a row and '1' is a wall.
+     *
+     * @param reader reader of the text grid
+     * @param width grid's width in cells
+     * @param height grid's height in cells
+     * @return packed grid
+     * @throws IOException if reading fails
+     */
+    static NavigationGrid readText(BufferedReader reader, int width, int height) throws IOException {
+        long[] words = new long[getWordCount(width, height)];
+        String line;
+        int row = 0;
+        while ((line = reader.readLine()) != null && row < height) {
+            for (int col = 0; col < width && col < line.length(); col++) {
+                if (line.charAt(col) == '1') {
+                    int bit = row * width + col;
+                    words[bit >>> 6] |= 1L << bit;
+                }
+            }
+            row++;
+        }
+        return new NavigationGrid(width, height, words);
+    }
+
+    /**
+     * Read binary grid from a stream.
+     *
+     * @param input stream of the binary file
+     * @return packed grid
+     * @throws IOException if reading fails or the stream is not a navigation grid
+     */
+    static NavigationGrid readBinary(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a navigation grid");
+        }
+        int width = data.readInt();
+        int height = data.readInt();
+        long[] words = new long[getWordCount(width, height)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = data.readLong();
+        }
+        return new NavigationGrid(width, height, words);
+    }
+
+    /**
+     * Read binary grid by memory-mapping the file.
+     *
+     * @param path path of the binary file
+     * @return packed grid
+     * @throws IOException if reading fails or the file is not a navigation grid
+     */
+    static NavigationGrid mapBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a navigation grid: " + path);
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            long[] words = new long[getWordCount(width, height)];
+            buffer.asLongBuffer().get(words);
+            return new NavigationGrid(width, height, words);
+        }
+    }
+
+    /**
+     * Write grid in the binary format.
+     *
+     * @param output stream the grid is written to
+     * @throws IOException if writing fails
+     */
+    void writeBinary(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeInt(width);
+        data.writeInt(height);
+        for (long word : words) {
+            data.writeLong(word);
+        }
+        data.flush();
+    }
+}
@@ -0,0 +1,51 @@
+package ee.taltech.server.ai;
+
+/**
+ * Finds paths between grid cells.
+ * Searches can be run in slices: a started search expands a limited number of cells per resume()
+ * and keeps its state until the next one.
+ * Implementations reuse their search state, so one instance can only be used by one thread at a time.
+ */
+public interface PathFinder {
+    int[] NO_PATH = new int[0];
+
+    /**
+     * Start finding path from source to destination, forgetting the previous search.
+     *
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     */
+    void start(int srcX, int srcY, int dstX, int dstY);
+
+    /**
+     * Continue the started search.
+     *
+     * @param maxExpansions number of cells that can be expanded before the search is suspended
+     * @return path as cells from the first step to the destination, NO_PATH if there is none,
+     *         null if the search was suspended
+     */
+    int[] resume(int maxExpansions);
+
+    /**
+     * Get number of cells expanded since the search started.
+     *
+     * @return expanded cells
+     */
+    int getExpansions();
+
+    /**
+     * Find path from source to destination in one go.
+     *
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     * @return path as cells from the first step to the destination, NO_PATH if there is none
+     */
+    default int[] findPath(int srcX, int srcY, int dstX, int dstY) {
+        start(srcX, srcY, dstX, dstY);
+        return resume(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,27 @@
+package ee.taltech.server.ai;
+
+public enum PathFindingMode {
+    A_STAR(true),
+    JUMP_POINT_SEARCH(false),
+    HIERARCHICAL(false); // Only the part of the path up to the next cluster is returned
+
+    private final boolean diagonal;
+
+    /**
+     * Construct PathFindingMode.
+     *
+     * @param diagonal does the search step diagonally
+     */
+    PathFindingMode(boolean diagonal) {
+        this.diagonal = diagonal;
+    }
+
+    /**
+     * Get whether the mode's searches step in 8 directions, otherwise they step in 4.
+     *
+     * @return true if diagonal steps are used
+     */
+    public boolean isDiagonal() {
+        return diagonal;
+    }
+}
@@ -0,0 +1,363 @@
+package ee.taltech.server.ai;
+
+import com.esotericsoftware.minlog.Log;
+import ee.taltech.server.components.Constants;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-wide path finding, every mob in every game sends its searches here.
+ * Searches run on the workers and the tick threads never wait for them.
+ * Every tick each game's searches get a budget of expanded cells, shared between them.
+ * Jump point search also spends the budget on the cells its jumps walk, not only on the jump points.
+ * A search that uses up its share is suspended and continues on the next tick,
+ * a search that goes over the per-request cap gives up and reports that there is no path.
+ */
+public class PathFindingService {
+    private final ClearanceMap clearance;
+    private final NavigationGrid mobGrid; // Cells where mob's body fits, every search is done on this grid
+    // Precomputed from the mob grid and shared by every search, null if the mode does not use them
+    private final JumpTable jumps;
+    private final ClusterGraph clusters;
+    private final ReachabilityIndex reachability;
+    // Path finders hold arrays for the whole grid, so a limited number of them is reused by every game
+    private final Queue<PathFinder> idlePathFinders;
+    private final AtomicInteger pathFinderCount;
+    private final ThreadPoolExecutor workers;
+    private final Map<Integer, GameSearches> games; // Contains gameId: game's searches
+
+    /**
+     * Construct PathFindingService.
+     * Grid has to be set before, because searches use it.
+     */
+    public PathFindingService() {
+        this.clearance = new ClearanceMap(Grid.grid);
+        this.mobGrid = clearance.createGrid(Constants.MOB_CLEARANCE);
+        this.jumps = Constants.PATH_FINDING_MODE == PathFindingMode.JUMP_POINT_SEARCH
+                ? new JumpTable(mobGrid) : null;
+        this.clusters = Constants.PATH_FINDING_MODE == PathFindingMode.HIERARCHICAL
+                ? new ClusterGraph(mobGrid, Constants.HPA_CLUSTER_SIZE) : null;
+        this.reachability = new ReachabilityIndex(mobGrid, Constants.WANDER_REGION_SIZE,
+                Constants.WANDER_POINT_SPACING);
+        this.idlePathFinders = new ConcurrentLinkedQueue<>();
+        this.pathFinderCount = new AtomicInteger();
+        this.games = new ConcurrentHashMap<>();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(Constants.PATH_FINDING_THREADS, Constants.PATH_FINDING_THREADS,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Constants.PATH_FINDING_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "path-finding-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true); // Searches should not keep the server running
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a search from source to destination, it starts on the game's next runSearches().
+     *
+     * @param gameId game that the search is for
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     * @return future path as cells, empty if there is no path,
+     *         or null if the game already has too many searches and should ask again later
+     */
+    public CompletableFuture<int[]> requestPath(int gameId, int srcX, int srcY, int dstX, int dstY) {
+        GameSearches searches = games.computeIfAbsent(gameId, id -> new GameSearches());
+        if (searches.requestCount.incrementAndGet() > Constants.MAX_PATH_REQUESTS_PER_GAME) {
+            searches.requestCount.decrementAndGet(); // Game already has its share of the searches
+            return null;
+        }
+        PathRequest request = new PathRequest(srcX, srcY, dstX, dstY);
+        searches.waiting.add(request);
+        return request.future;
+    }
+
+    /**
+     * Run the next slice of the game's searches on a worker, called by the game once per tick.
+     * Nothing is started if the previous slice is still running or the workers' queue is full.
+     *
+     * @param gameId game whose searches are run
+     */
+    public void runSearches(int gameId) {
+        GameSearches searches = games.get(gameId);
+        if (searches == null || searches.requestCount.get() == 0 || !searches.running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            workers.execute(() -> runSlice(searches));
+        } catch (RejectedExecutionException e) { // Queue is full, try again on the next tick
+            searches.running.set(false);
+        }
+    }
+
+    /**
+     * Start waiting searches and continue the started ones within the game's budget for this tick.
+     * Only one slice of a game runs at a time, so the game's started searches are used by one thread.
+     *
+     * @param searches game's searches
+     */
+    private void runSlice(GameSearches searches) {
+        try {
+            int budget = Constants.PATH_EXPANSIONS_PER_TICK;
+            while (budget > 0) { // Budget left by searches that finished goes to the next ones
+                startWaitingSearches(searches);
+                if (searches.started.isEmpty()) {
+                    break;
+                }
+                int share = Math.max(1, budget / searches.started.size()); // Fair share for every started search
+                Iterator<PathRequest> iterator = searches.started.iterator();
+                while (iterator.hasNext()) {
+                    PathRequest request = iterator.next();
+                    int expansionsBefore = request.pathFinder.getExpansions();
+                    int[] path = continueSearch(request, share);
+                    budget -= request.pathFinder.getExpansions() - expansionsBefore;
+                    if (path != null) {
+                        iterator.remove();
+                        finish(searches, request, path);
+                    }
+                }
+            }
+        } finally {
+            searches.running.set(false);
+        }
+        if (searches.ended && searches.running.compareAndSet(false, true)) {
+            releaseAll(searches); // Game ended while the slice was running
+        }
+    }
+
+    /**
+     * Give path finders to waiting searches while there are free ones.
+     *
+     * @param searches game's searches
+     */
+    private void startWaitingSearches(GameSearches searches) {
+        while (searches.started.size() < Constants.MAX_STARTED_SEARCHES_PER_GAME) {
+            PathRequest request = searches.waiting.peek();
+            if (request == null) {
+                return;
+            }
+            if (request.future.isDone()) { // Cancelled by a mob that was removed
+                searches.waiting.poll();
+                searches.requestCount.decrementAndGet();
+                continue;
+            }
+            // Mob or its target can be closer to a wall than mob's body fits, use the closest cells that fit
+            int source = findClosestMobCell(request.srcX, request.srcY);
+            int destination = findClosestMobCell(request.dstX, request.dstY);
+            if (source == -1 || destination == -1) {
+                searches.waiting.poll();
+                searches.requestCount.decrementAndGet();
+                request.future.complete(PathFinder.NO_PATH);
+                continue;
+            }
+            PathFinder pathFinder = acquirePathFinder();
+            if (pathFinder == null) { // Every path finder is in use, wait for the next tick
+                return;
+            }
+            searches.waiting.poll();
+            request.pathFinder = pathFinder;
+            request.source = source;
+            pathFinder.start(Grid.cellX(source), Grid.cellY(source), Grid.cellX(destination), Grid.cellY(destination));
+            searches.started.add(request);
+        }
+    }
+
+    /**
+     * Continue one search for its share of the budget.
+     *
+     * @param request started search
+     * @param share number of cells the search can expand in this slice
+     * @return path, NO_PATH if there is none or the search failed, null if the search was suspended
+     */
+    private int[] continueSearch(PathRequest request, int share) {
+        if (request.future.isDone()) { // Cancelled, nobody will collect the path
+            return PathFinder.NO_PATH;
+        }
+        try {
+            int[] path = request.pathFinder.resume(share);
+            if (path == null && request.pathFinder.getExpansions() >= Constants.MAX_SEARCH_EXPANSIONS) {
+                return PathFinder.NO_PATH; // Most likely unreachable, give up instead of searching the whole grid
+            }
+            if (path == null || path.length == 0) {
+                return path;
+            }
+            int sourceX = Grid.cellX(request.source);
+            int sourceY = Grid.cellY(request.source);
+            if (Constants.PATH_SMOOTHING) {
+                path = PathSmoothing.smooth(mobGrid, sourceX, sourceY, path);
+            }
+            if (sourceX != request.srcX || sourceY != request.srcY) { // Walk to the searched source first
+                int[] fromSource = new int[path.length + 1];
+                fromSource[0] = request.source;
+                System.arraycopy(path, 0, fromSource, 1, path.length);
+                path = fromSource;
+            }
+            return path;
+        } catch (RuntimeException e) {
+            Log.error("Path finding failed", e);
+            return PathFinder.NO_PATH;
+        }
+    }
+
+    /**
+     * Release the finished search's path finder and give the path to the mob.
+     *
+     * @param searches game's searches
+     * @param request finished search
+     * @param path found path
+     */
+    private void finish(GameSearches searches, PathRequest request, int[] path) {
+        releasePathFinder(request.pathFinder);
+        searches.requestCount.decrementAndGet();
+        request.future.complete(path);
+    }
+
+    /**
+     * Take a free path finder, creating one if there are less than the maximum.
+     *
+     * @return path finder, null if every path finder is in use
+     */
+    private PathFinder acquirePathFinder() {
+        PathFinder pathFinder = idlePathFinders.poll();
+        if (pathFinder != null) {
+            return pathFinder;
+        }
+        if (pathFinderCount.incrementAndGet() > Constants.PATH_FINDERS) {
+            pathFinderCount.decrementAndGet();
+            return null;
+        }
+        return createPathFinder();
+    }
+
+    /**
+     * Return path finder for other searches to use.
+     *
+     * @param pathFinder path finder that is not used anymore
+     */
+    private void releasePathFinder(PathFinder pathFinder) {
+        idlePathFinders.add(pathFinder);
+    }
+
+    /**
+     * Create path finder of the configured mode.
+     *
+     * @return path finder
+     */
+    private PathFinder createPathFinder() {
+        return switch (Constants.PATH_FINDING_MODE) {
+            case A_STAR -> new AStarPathFinding(mobGrid);
+            case JUMP_POINT_SEARCH -> new JumpPointSearch(mobGrid, jumps);
+            case HIERARCHICAL -> new HierarchicalPathFinding(mobGrid, clusters);
+        };
+    }
+
+    /**
+     * Release path finders of an ended game's searches.
+     *
+     * @param searches ended game's searches
+     */
+    private void releaseAll(GameSearches searches) {
+        for (PathRequest request : searches.started) {
+            releasePathFinder(request.pathFinder);
+            request.future.cancel(false);
+        }
+        searches.started.clear();
+        searches.waiting.forEach(request -> request.future.cancel(false));
+        searches.waiting.clear();
+    }
+
+    /**
+     * Get grid of the cells where mob's body fits.
+     *
+     * @return mob grid
+     */
+    public NavigationGrid getMobGrid() {
+        return mobGrid;
+    }
+
+    /**
+     * Find the closest cell where mob's body fits.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return the same cell if mob fits there, -1 if there is no such cell close by
+     */
+    public int findClosestMobCell(int x, int y) {
+        return clearance.findClosestClearCell(x, y, Constants.MOB_CLEARANCE, 2 * Constants.MOB_CLEARANCE);
+    }
+
+    /**
+     * Get connected components and wander points of the mob grid.
+     *
+     * @return reachability index
+     */
+    public ReachabilityIndex getReachability() {
+        return reachability;
+    }
+
+    /**
+     * Forget the game's searches after it has ended.
+     *
+     * @param gameId game that ended
+     */
+    public void removeGame(int gameId) {
+        GameSearches searches = games.remove(gameId);
+        if (searches == null) {
+            return;
+        }
+        searches.ended = true;
+        if (searches.running.compareAndSet(false, true)) { // Otherwise the running slice releases them
+            releaseAll(searches);
+        }
+    }
+
+    private static class GameSearches {
+        private final Queue<PathRequest> waiting = new ConcurrentLinkedQueue<>(); // Added by the game's tick
+        private final List<PathRequest> started = new ArrayList<>(); // Only used by the running slice
+        private final AtomicInteger requestCount = new AtomicInteger(); // Waiting and started searches
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean ended;
+    }
+
+    private static class PathRequest {
+        private final int srcX;
+        private final int srcY;
+        private final int dstX;
+        private final int dstY;
+        private final CompletableFuture<int[]> future;
+        private PathFinder pathFinder; // Set when the search is started
+        private int source; // Cell that the search starts from, closest one to the mob where it fits
+
+        /**
+         * Construct PathRequest.
+         *
+         * @param srcX source node's x
+         * @param srcY source node's y
+         * @param dstX destination node's x
+         * @param dstY destination node's y
+         */
+        private PathRequest(int srcX, int srcY, int dstX, int dstY) {
+            this.srcX = srcX;
+            this.srcY = srcY;
+            this.dstX = dstX;
+            this.dstY = dstY;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ee.taltech.server.ai;
+
+import java.util.Arrays;
+
+/**
+ * String pulling for paths found on the grid.
+ * Cells that can be skipped by walking straight are removed, so a path becomes a few waypoints
+ * that can be walked to in straight lines.
+ */
+public class PathSmoothing {
+
+    private PathSmoothing() {
+    }
+
+    /**
+     * Remove every cell of the path that can be seen from the previous kept waypoint.
+     *
+     * @param grid navigation grid
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param path path as cells from the first step to the destination
+     * @return waypoints from the first one to the destination
+     */
+    public static int[] smooth(NavigationGrid grid, int srcX, int srcY, int[] path) {
+        if (path.length < 2) {
+            return path;
+        }
+        int[] waypoints = new int[path.length];
+        int count = 0;
+        int anchorX = srcX;
+        int anchorY = srcY;
+        for (int i = 0; i < path.length - 1; i++) {
+            int next = path[i + 1];
+            if (!hasLineOfSight(grid, anchorX, anchorY, Grid.cellX(next), Grid.cellY(next))) {
+                waypoints[count++] = path[i]; // Furthest cell that could be walked to straight
+                anchorX = Grid.cellX(path[i]);
+                anchorY = Grid.cellY(path[i]);
+            }
+        }
+        waypoints[count++] = path[path.length - 1];
+        return Arrays.copyOf(waypoints, count);
+    }
+
+    /**
+     * Can a straight line from the center of one cell to the center of another be walked.
+     * Every cell the line touches has to be walkable. Where the line passes exactly through a corner,
+     * both cells next to the corner have to be walkable as well.
+     *
+     * @param grid navigation grid
+     * @param x0 start cell's x
+     * @param y0 start cell's y
+     * @param x1 end cell's x
+     * @param y1 end cell's y
+     * @return true if nothing blocks the line
+     */
+    public static boolean hasLineOfSight(NavigationGrid grid, int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = Math.abs(y1 - y0);
+        int stepX = x1 > x0 ? 1 : -1;
+        int stepY = y1 > y0 ? 1 : -1;
+        int x = x0;
+        int y = y0;
+        int movedX = 0;
+        int movedY = 0;
+        while (movedX < dx || movedY < dy) {
+            // Compare where the line crosses the next vertical and the next horizontal cell border
+            long decision = (long) (1 + 2 * movedX) * dy - (long) (1 + 2 * movedY) * dx;
+            if (decision == 0) { // Through the corner
+                if (!grid.isWalkable(x + stepX, y) || !grid.isWalkable(x, y + stepY)) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                movedX++;
+                movedY++;
+            } else if (decision < 0) {
+                x += stepX;
+                movedX++;
+            } else {
+                y += stepY;
+                movedY++;
+            }
+            if (!grid.isWalkable(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get length of walking the waypoints in straight lines.
+     *
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param path waypoints as cells
+     * @return length in cells
+     */
+    public static float getLength(int srcX, int srcY, int[] path) {
+        float length = 0;
+        int x = srcX;
+        int y = srcY;
+        for (int cell : path) {
+            length += (float) Math.hypot(Grid.cellX(cell) - x, Grid.cellY(cell) - y);
+            x = Grid.cellX(cell);
+            y = Grid.cellY(cell);
+        }
+        return length;
+    }
+}
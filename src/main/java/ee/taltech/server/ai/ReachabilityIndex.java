@@ -0,0 +1,161 @@
+package ee.taltech.server.ai;
+
+import ee.taltech.server.components.Constants;
+
+import java.util.Random;
+
+/**
+ * Connected components of the grid and wander points grouped by region, built once and shared by every game.
+ * Two walkable cells have a path between them only if they have the same component,
+ * so unreachable destinations can be rejected without searching.
+ */
+public class ReachabilityIndex {
+    private static final int NO_COMPONENT = 0;
+
+    private final int[] components; // Component of every cell, NO_COMPONENT for walls
+    private final int regionSize;
+    private final int regionsX;
+    // Wander points of region r are points[regionStart[r]] ... points[regionStart[r + 1] - 1]
+    private final int[] regionStart;
+    private final int[] points;
+
+    /**
+     * Construct ReachabilityIndex.
+     *
+     * @param grid navigation grid
+     * @param regionSize width and height of one region in cells
+     * @param pointSpacing distance between wander points in cells
+     */
+    public ReachabilityIndex(NavigationGrid grid, int regionSize, int pointSpacing) {
+        this.components = new int[Constants.MAX_X_NODE * Constants.MAX_Y_NODE];
+        labelComponents(grid);
+
+        this.regionSize = regionSize;
+        this.regionsX = (Constants.MAX_X_NODE + regionSize - 1) / regionSize;
+        int regionsY = (Constants.MAX_Y_NODE + regionSize - 1) / regionSize;
+        this.regionStart = new int[regionsX * regionsY + 1];
+        // Count points of every region first, then fill them in the same order
+        for (int y = 0; y < Constants.MAX_Y_NODE; y += pointSpacing) {
+            for (int x = 0; x < Constants.MAX_X_NODE; x += pointSpacing) {
+                if (grid.isWalkable(x, y)) {
+                    regionStart[(y / regionSize) * regionsX + x / regionSize + 1]++;
+                }
+            }
+        }
+        for (int region = 0; region < regionsX * regionsY; region++) {
+            regionStart[region + 1] += regionStart[region];
+        }
+        this.points = new int[regionStart[regionsX * regionsY]];
+        int[] filled = new int[regionsX * regionsY];
+        for (int y = 0; y < Constants.MAX_Y_NODE; y += pointSpacing) {
+            for (int x = 0; x < Constants.MAX_X_NODE; x += pointSpacing) {
+                if (grid.isWalkable(x, y)) {
+                    int region = (y / regionSize) * regionsX + x / regionSize;
+                    points[regionStart[region] + filled[region]++] = Grid.toCell(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Give every walkable cell the number of its component with flood fill.
+     *
+     * @param grid navigation grid
+     */
+    private void labelComponents(NavigationGrid grid) {
+        int[] queue = new int[components.length];
+        int component = NO_COMPONENT;
+        for (int start = 0; start < components.length; start++) {
+            if (components[start] != NO_COMPONENT || !grid.isWalkable(Grid.cellX(start), Grid.cellY(start))) {
+                continue;
+            }
+            component++;
+            int head = 0;
+            int tail = 0;
+            components[start] = component;
+            queue[tail++] = start;
+            while (head < tail) {
+                int current = queue[head++];
+                int x = Grid.cellX(current);
+                int y = Grid.cellY(current);
+                tail = visit(grid, x - 1, y, component, queue, tail);
+                tail = visit(grid, x + 1, y, component, queue, tail);
+                tail = visit(grid, x, y - 1, component, queue, tail);
+                tail = visit(grid, x, y + 1, component, queue, tail);
+            }
+        }
+    }
+
+    /**
+     * Add the cell to the component if it is walkable and has no component yet.
+     *
+     * @param grid navigation grid
+     * @param x cell's x
+     * @param y cell's y
+     * @param component component that is filled
+     * @param queue flood fill queue
+     * @param tail end of the queue
+     * @return new end of the queue
+     */
+    private int visit(NavigationGrid grid, int x, int y, int component, int[] queue, int tail) {
+        if (!grid.isWalkable(x, y)) {
+            return tail;
+        }
+        int cell = Grid.toCell(x, y);
+        if (components[cell] != NO_COMPONENT) {
+            return tail;
+        }
+        components[cell] = component;
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    /**
+     * Can there be a path between the cells.
+     * Walls have no component, so a source cell in a wall is not ruled out.
+     *
+     * @param srcX source cell's x
+     * @param srcY source cell's y
+     * @param dstX destination cell's x
+     * @param dstY destination cell's y
+     * @return false if the cells are certainly not connected
+     */
+    public boolean isReachable(int srcX, int srcY, int dstX, int dstY) {
+        int source = components[Grid.toCell(srcX, srcY)];
+        return source == NO_COMPONENT || source == components[Grid.toCell(dstX, dstY)];
+    }
+
+    /**
+     * Choose random wander point around the cell that is in the same component.
+     * Random regions in the range are tried a bounded number of times.
+     *
+     * @param x source cell's x
+     * @param y source cell's y
+     * @param range maximum distance to the point on both axes in cells
+     * @param attempts number of points that are tried
+     * @param random random generator
+     * @return cell of the wander point, -1 if none of the tried points can be reached
+     */
+    public int chooseWanderPoint(int x, int y, int range, int attempts, Random random) {
+        int minRegionX = Math.max(0, x - range) / regionSize;
+        int maxRegionX = Math.min(Constants.MAX_X_NODE - 1, x + range) / regionSize;
+        int minRegionY = Math.max(0, y - range) / regionSize;
+        int maxRegionY = Math.min(Constants.MAX_Y_NODE - 1, y + range) / regionSize;
+        int source = Grid.toCell(x, y);
+
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            int region = random.nextInt(minRegionY, maxRegionY + 1) * regionsX
+                    + random.nextInt(minRegionX, maxRegionX + 1);
+            int count = regionStart[region + 1] - regionStart[region];
+            if (count == 0) { // Only walls in the region
+                continue;
+            }
+            int point = points[regionStart[region] + random.nextInt(count)];
+            if (point != source && isReachable(x, y, Grid.cellX(point), Grid.cellY(point))
+                    && Math.abs(Grid.cellX(point) - x) <= range && Math.abs(Grid.cellY(point) - y) <= range) {
+                return point;
+            }
+        }
+        return -1;
+    }
+}
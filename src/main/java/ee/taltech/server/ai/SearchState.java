@@ -0,0 +1,238 @@
+package ee.taltech.server.ai;
+
+import ee.taltech.server.components.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Reusable arrays for a best-first search over the grid's cells, or any other numbered nodes.
+ * Nothing is allocated per expanded cell and the arrays are not cleared between searches,
+ * so one instance can only be used by one thread.
+ */
+class SearchState {
+    // Scores and parents are only valid for cells whose generation is the current search's
+    private final int[] gScore;
+    private final int[] parent;
+    private final int[] generation;
+    private int currentGeneration;
+    private final long[] closed; // Bit per cell
+
+    // Binary heap of open cells, each entry is f score in the high and cell in the low 32 bits
+    private long[] heap;
+    private int heapSize;
+    private final int[] heapPosition;
+    private int expansions; // Cells popped since the search started
+
+    /**
+     * Construct SearchState for the whole grid.
+     */
+    SearchState() {
+        this(Constants.MAX_X_NODE * Constants.MAX_Y_NODE);
+    }
+
+    /**
+     * Construct SearchState.
+     *
+     * @param cells number of cells or nodes
+     */
+    SearchState(int cells) {
+        this.gScore = new int[cells];
+        this.parent = new int[cells];
+        this.generation = new int[cells];
+        this.currentGeneration = 0;
+        this.closed = new long[(cells + 63) / 64];
+        this.heap = new long[1024];
+        this.heapSize = 0;
+        this.heapPosition = new int[cells];
+    }
+
+    /**
+     * Forget the previous search without clearing the score arrays.
+     */
+    void start() {
+        currentGeneration++;
+        if (currentGeneration == 0) { // Wrapped around, old stamps could look current again
+            Arrays.fill(generation, 0);
+            currentGeneration = 1;
+        }
+        Arrays.fill(closed, 0L);
+        heapSize = 0;
+        expansions = 0;
+    }
+
+    /**
+     * Has the cell been opened in this search.
+     *
+     * @param cell index of the cell
+     * @return true if the cell has a g score
+     */
+    boolean isSeen(int cell) {
+        return generation[cell] == currentGeneration;
+    }
+
+    /**
+     * Is the cell already expanded.
+     *
+     * @param cell index of the cell
+     * @return true if the cell is in the closed set
+     */
+    boolean isClosed(int cell) {
+        return (closed[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Add cell to the closed set.
+     *
+     * @param cell index of the cell
+     */
+    void close(int cell) {
+        closed[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * Get cell's cost from the source, only valid if the cell is seen.
+     *
+     * @param cell index of the cell
+     * @return g score
+     */
+    int getGScore(int cell) {
+        return gScore[cell];
+    }
+
+    /**
+     * Get cell that this cell was reached from, only valid if the cell is seen.
+     *
+     * @param cell index of the cell
+     * @return parent cell, -1 for the source
+     */
+    int getParent(int cell) {
+        return parent[cell];
+    }
+
+    /**
+     * Get number of cells removed from the open set since the search started.
+     *
+     * @return expanded cells
+     */
+    int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Are there open cells left.
+     *
+     * @return true if the open set is empty
+     */
+    boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Add cell to the open set.
+     *
+     * @param cell   cell that is opened
+     * @param g      cost from the source
+     * @param from   cell that it was reached from
+     * @param fScore g score + h score
+     */
+    void open(int cell, int g, int from, int fScore) {
+        generation[cell] = currentGeneration;
+        gScore[cell] = g;
+        parent[cell] = from;
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        heap[heapSize] = key(cell, fScore);
+        heapPosition[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Update open cell that was reached with a lower cost.
+     *
+     * @param cell   open cell
+     * @param g      new cost from the source
+     * @param from   cell that it was reached from
+     * @param fScore g score + h score
+     */
+    void decrease(int cell, int g, int from, int fScore) {
+        gScore[cell] = g;
+        parent[cell] = from;
+        heap[heapPosition[cell]] = key(cell, fScore);
+        siftUp(heapPosition[cell]);
+    }
+
+    /**
+     * Remove the open cell with the lowest f score.
+     *
+     * @return removed cell
+     */
+    int pop() {
+        expansions++;
+        int cell = (int) heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPosition[(int) heap[0]] = 0;
+            siftDown(0);
+        }
+        return cell;
+    }
+
+    /**
+     * Move heap entry up until its parent is smaller.
+     *
+     * @param index entry's index in the heap
+     */
+    private void siftUp(int index) {
+        long entry = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            if (heap[parentIndex] <= entry) {
+                break;
+            }
+            heap[index] = heap[parentIndex];
+            heapPosition[(int) heap[index]] = index;
+            index = parentIndex;
+        }
+        heap[index] = entry;
+        heapPosition[(int) entry] = index;
+    }
+
+    /**
+     * Move heap entry down until its children are bigger.
+     *
+     * @param index entry's index in the heap
+     */
+    private void siftDown(int index) {
+        long entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (entry <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapPosition[(int) heap[index]] = index;
+            index = child;
+        }
+        heap[index] = entry;
+        heapPosition[(int) entry] = index;
+    }
+
+    /**
+     * Get heap entry, ordered by f score.
+     *
+     * @param cell   cell's index
+     * @param fScore g score + h score
+     * @return heap entry
+     */
+    private static long key(int cell, int fScore) {
+        return ((long) fScore << 32) | cell;
+    }
+}
@@ -1,13 +1,46 @@
 package ee.taltech.server.components;
 
+import ee.taltech.server.ai.PathFindingMode;
 import ee.taltech.server.entities.spawner.EntitySpawner;
 
 import java.util.Map;
 
 public class Constants {
     public static final float PPM = 32;
+    public static final int TICKS_PER_SECOND = 60;
+    public static final int MAX_CATCH_UP_TICKS = 5;
+    public static final long TICK_SPIN_THRESHOLD_NANOS = 500_000; // Spin only for the last half millisecond
+    public static final int TICK_STATS_INTERVAL_TICKS = TICKS_PER_SECOND * 60; // Report once a minute
+    public static final boolean PARALLEL_GAME_TICKS = true; // False ticks all games on the tick thread
+    public static final int GAME_TICK_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int WRITE_BUFFER_SIZE = 65536;
+    public static final int OBJECT_BUFFER_SIZE = 8192;
+    public static final int SNAPSHOT_HISTORY_SIZE = 32; // Older acknowledgements fall back to full snapshots
+    public static final float VIEW_RADIUS = 30; // Entities further than this from the player are not sent
+    public static final float INTEREST_CELL_SIZE = 10;
+    // Jump point and hierarchical searches stay 4-connected on purpose: jump table only holds straight stops
+    // and smoothing turns their paths into straight waypoints. Only A* steps diagonally, flow fields match the mode.
+    public static final PathFindingMode PATH_FINDING_MODE = PathFindingMode.JUMP_POINT_SEARCH;
+    public static final boolean PATH_SMOOTHING = true; // Reduce found paths to waypoints that are walked straight
+    public static final int HPA_CLUSTER_SIZE = 40;
+    public static final int HPA_WIDE_ENTRANCE = 6; // Border openings this wide get an entrance at both ends
+    // False makes every chasing mob search its own path and repair it as the player moves,
+    // with flow fields only mobs that the field can not guide do that
+    public static final boolean FLOW_FIELD_CHASE = true;
+    // Cells around the chased player: the triggering range in cells and a margin for ways around walls
+    public static final int FLOW_FIELD_RADIUS = (int) (Constants.TRIGGERING_RANGE_RADIUS * 4) + 15;
+    public static final int FLOW_FIELD_REFRESH_TICKS = 10;
+    public static final int MAX_FLOW_FIELD_UPDATES_PER_TICK = 2; // Per game, other due fields wait for a later tick
+    public static final int PATH_FINDING_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    public static final int PATH_FINDING_QUEUE_SIZE = 256;
+    public static final int MAX_PATH_REQUESTS_PER_GAME = 32; // Mobs over this ask again on a later tick
+    public static final int MAX_STARTED_SEARCHES_PER_GAME = 4; // Others wait in the game's queue
+    public static final int PATH_FINDERS = PATH_FINDING_THREADS * 2; // Each holds search arrays for the whole grid
+    public static final int PATH_EXPANSIONS_PER_TICK = 20000; // Per game, shared by its started searches
+    public static final int MAX_SEARCH_EXPANSIONS = 100000; // Search that expands more is treated as unreachable
     public static final int MAX_X_NODE = 1200;
     public static final int MAX_Y_NODE = 1200;
+    public static final float WORLD_SIZE = 300;
 
     public static final float PLAYER_MOVEMENT_SPEED = 4;
     public static final float MOB_MOVEMENT_SPEED = 3;
@@ -25,10 +58,22 @@ public class Constants {
 
     public static final float HIT_BOX_RADIUS = 1f; // One cell size
 
-    public static final float TRIGGERING_RANGE_RADIUS = 15f;
+    public static final float TRIGGERING_RANGE_RADIUS = 15f; // Mobs chase living players this close
     public static final int MOB_HEALTH = 70;
     public static final float MOD_SPIN_ATTACK_DAMAGE = 10;
-    public static final int MAX_PATH_RANGE = 150;
+    public static final int MAX_PATH_RANGE = 150; // Cells, measured along the path
+    public static final int PATH_REPAIR_DISTANCE = 4; // Cells the chased player can move before mob's path is repaired
+    public static final int WANDER_REGION_SIZE = 20; // Cells, wander points are grouped by these regions
+    public static final int WANDER_POINT_SPACING = 4; // Cells between wander points
+    public static final int WANDER_ATTEMPTS = 8; // Wander points tried per tick before giving up
+    public static final int MOB_THINKS_PER_TICK = 16; // Mobs that can decide on a new path in one tick, per game
+    public static final float MOB_ACTIVE_RADIUS = VIEW_RADIUS + 10; // Mobs with no player this close are frozen
+    public static final int MOB_ACTIVITY_CHECK_TICKS = TICKS_PER_SECOND / 4;
+    public static final int MOB_AGGRO_CHECK_TICKS = TICKS_PER_SECOND / 10; // Ticks between triggering range checks
+    public static final int MOB_CLEARANCE = 3; // Cells from mob's center to walls on its paths
+    public static final int MOB_STUCK_TICKS = TICKS_PER_SECOND; // Mob that stays in one cell this long is stuck
+    public static final int MOB_BACK_OFF_TICKS = TICKS_PER_SECOND / 2; // Doubled every time mob is stuck again
+    public static final int MOB_MAX_BACK_OFF_TICKS = TICKS_PER_SECOND * 8;
 
     public static final float COIN_DROP_RANGE = 1;
     public static final float ITEM_DROP_RANGE = 0.5f;
@@ -2,18 +2,23 @@ package ee.taltech.server.components;
 
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
-import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.minlog.Log;
 import ee.taltech.server.GameServer;
+import ee.taltech.server.ai.FlowField;
+import ee.taltech.server.ai.Grid;
+import ee.taltech.server.ai.ReachabilityIndex;
 import ee.taltech.server.entities.Item;
 import ee.taltech.server.entities.Mob;
 import ee.taltech.server.entities.Spell;
 import ee.taltech.server.entities.PlayerCharacter;
 import ee.taltech.server.entities.collision.CollisionListener;
+import ee.taltech.server.network.SnapshotHistory;
 import ee.taltech.server.network.messages.game.*;
 import ee.taltech.server.world.WorldCollision;
 
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 public class Game {
@@ -26,6 +31,15 @@ public class Game {
     private final PlayZone playZone;
 
     public final Map<Integer, PlayerCharacter> gamePlayers;
+    private final Map<Integer, SnapshotHistory> snapshotHistories;
+    private final Map<Integer, FlowField> flowFields; // Contains playerId: field of the mobs chasing them
+    private final Deque<FlowField> idleFlowFields; // Fields nobody chases with anymore, reused for new targets
+    private final MobScheduler mobScheduler;
+
+    // Entity states of the current snapshot by their position, for sending players only what is near them
+    private final SpatialGrid<WorldSnapshot.PlayerState> visiblePlayers;
+    private final SpatialGrid<WorldSnapshot.SpellState> visibleSpells;
+    private final SpatialGrid<WorldSnapshot.MobState> visibleMobs;
     private final List<PlayerCharacter> deadPlayers;
     private final List<PlayerCharacter> playersToRemove;
 
@@ -43,9 +57,11 @@ public class Game {
     public final List<Mob> mobsToRemove;
 
     private final World world;
+    private final Queue<Runnable> commands;
 
     private int staringTicks;
     private int endingTicks;
+    private int currentTick;
     private final long startTime;
     private int currentTime;
 
@@ -58,8 +74,7 @@ public class Game {
      */
     public Game(GameServer server, Lobby lobby) {
         world = new World(new Vector2(0, 0), true);
-        Kryo kryo = server.server.getKryo();
-        new WorldCollision(world, kryo);
+        new WorldCollision(world, server.terrain); // Only creates bodies, shapes were read on server start
 
         CollisionListener collisionListener = new CollisionListener(this);
         world.setContactListener(collisionListener); // Set collision listener that detects collision
@@ -71,13 +86,22 @@ public class Game {
         this.lobby = lobby;
         this.gameId = lobby.lobbyId;
 
+        this.commands = new ConcurrentLinkedQueue<>(); // Player actions queued by the listener
+
         this.gamePlayers = createPlayersMap();
-        this.playersToRemove = new CopyOnWriteArrayList<>();
-        this.deadPlayers = new CopyOnWriteArrayList<>();
+        this.snapshotHistories = new HashMap<>();
+        this.flowFields = new HashMap<>();
+        this.idleFlowFields = new ArrayDeque<>();
+        this.mobScheduler = new MobScheduler();
+        this.visiblePlayers = new SpatialGrid<>(Constants.WORLD_SIZE, Constants.INTEREST_CELL_SIZE);
+        this.visibleSpells = new SpatialGrid<>(Constants.WORLD_SIZE, Constants.INTEREST_CELL_SIZE);
+        this.visibleMobs = new SpatialGrid<>(Constants.WORLD_SIZE, Constants.INTEREST_CELL_SIZE);
+        this.playersToRemove = new ArrayList<>();
+        this.deadPlayers = new ArrayList<>();
 
         this.spells = new HashMap<>();
-        this.spellsToAdd = new CopyOnWriteArrayList<>();
-        this.spellsToDispel = new CopyOnWriteArrayList<>();
+        this.spellsToAdd = new ArrayList<>();
+        this.spellsToDispel = new ArrayList<>();
 
         this.items = new HashMap<>();
         this.itemsToRemove = new HashMap<>();
@@ -85,13 +109,38 @@ public class Game {
         this.coinsToRemove = new ArrayList<>();
 
         this.mobs = new HashMap<>();
-        this.mobsToAdd = new CopyOnWriteArrayList<>();
-        this.mobsToRemove = new CopyOnWriteArrayList<>();
+        this.mobsToAdd = new ArrayList<>();
+        this.mobsToRemove = new ArrayList<>();
 
         this.playZone = new PlayZone();
 
         this.staringTicks = 0;
         this.endingTicks = 0;
+        this.currentTick = 0;
+    }
+
+    /**
+     * Queue a change to the game's state.
+     * Game's state is only changed by the thread that ticks it, so the listener thread queues everything here.
+     *
+     * @param command change that is run at the start of the next game tick
+     */
+    public void queueCommand(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Run all the commands that have been queued since the last tick.
+     */
+    public void processCommands() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.run();
+            } catch (RuntimeException e) { // One bad message should not stop the tick
+                Log.error("Command failed!", e);
+            }
+        }
     }
 
     /**
@@ -111,12 +160,10 @@ public class Game {
      * Send playZone information.
      */
     public void sendPlayZoneCoordinates() {
-        for (Integer playerId : lobby.players) {
-            server.server.sendToTCP(playerId, new PlayZoneCoordinates(playZone.getFirstZoneX(),
-                    playZone.getFirstZoneY(), playZone.getSecondZoneX(),
-                    playZone.getSecondZoneY(), playZone.getThirdZoneX(),
-                    playZone.getThirdZoneY()));
-        }
+        server.broadcastTCP(lobby.players, new PlayZoneCoordinates(playZone.getFirstZoneX(),
+                playZone.getFirstZoneY(), playZone.getSecondZoneX(),
+                playZone.getSecondZoneY(), playZone.getThirdZoneX(),
+                playZone.getThirdZoneY()));
     }
 
     /**
@@ -278,9 +325,7 @@ public class Game {
         items.put(item.getId(), item); // Put it in the items map
 
         ItemDropped message = createItemDroppedMessage(item, playerCharacter);
-        for (Integer playerId : lobby.players) { // Send message for every player in the lobby
-            server.server.sendToUDP(playerId, message);
-        }
+        server.broadcastUDP(lobby.players, message); // Send message for every player in the lobby
     }
 
     /**
@@ -321,9 +366,7 @@ public class Game {
             message = new ItemPickedUp(null, item.getId(), item.getType());
         }
 
-        for (Integer playerId : gamePlayers.keySet()) {
-            server.server.sendToUDP(playerId, message);
-        }
+        server.broadcastUDP(gamePlayers.keySet(), message);
     }
 
     /**
@@ -340,9 +383,7 @@ public class Game {
         CoinPickedUp message = new CoinPickedUp(player.playerID, coin.getId());
 
         // Send message to every player in this game
-        for (Integer playerId : lobby.players) {
-            server.server.sendToUDP(playerId, message);
-        }
+        server.broadcastUDP(lobby.players, message);
     }
 
     /**
@@ -413,10 +454,121 @@ public class Game {
         return playZone;
     }
 
+    /**
+     * Send the play zone's stage to the players when it changes.
+     * Stage changes rarely, so it is sent over TCP to make sure it arrives.
+     */
+    public void sendPlayZoneChanges() {
+        if (playZone.isStageChanged()) {
+            server.broadcastTCP(lobby.players, new PlayZoneUpdate(playZone.getTimer(), playZone.stage()));
+        }
+        playZone.clearChanges();
+    }
+
+    /**
+     * Create a snapshot of every player's, spell's and mob's state in this tick.
+     * States are also indexed by position for filtering snapshots per player.
+     * Health and mana carry the tick when they last changed, so deltas only send the changed ones.
+     *
+     * @return WorldSnapshot message
+     */
+    public WorldSnapshot createSnapshot() {
+        visiblePlayers.clear();
+        visibleSpells.clear();
+        visibleMobs.clear();
+
+        WorldSnapshot.PlayerState[] playerStates = new WorldSnapshot.PlayerState[gamePlayers.size()];
+        int i = 0;
+        for (PlayerCharacter player : gamePlayers.values()) {
+            player.clearChanges(currentTick);
+            playerStates[i] = new WorldSnapshot.PlayerState(player.playerID,
+                    player.getXPosition(), player.getYPosition(), (int) player.health, player.mana,
+                    player.getMouseLeftClick(), player.mouseXPosition, player.mouseYPosition);
+            playerStates[i].healthChangeTick = player.getHealthChangeTick();
+            playerStates[i].manaChangeTick = player.getManaChangeTick();
+            visiblePlayers.insert(playerStates[i], playerStates[i].xPosition, playerStates[i].yPosition);
+            i++;
+        }
+
+        WorldSnapshot.SpellState[] spellStates = new WorldSnapshot.SpellState[spells.size()];
+        i = 0;
+        for (Spell spell : spells.values()) {
+            spellStates[i] = new WorldSnapshot.SpellState(spell.getPlayerId(), spell.getSpellId(),
+                    (float) spell.getSpellXPosition(), (float) spell.getSpellYPosition(), spell.getType());
+            visibleSpells.insert(spellStates[i], spellStates[i].xPosition, spellStates[i].yPosition);
+            i++;
+        }
+
+        WorldSnapshot.MobState[] mobStates = new WorldSnapshot.MobState[mobs.size()];
+        i = 0;
+        for (Mob mob : mobs.values()) {
+            mob.clearChanges(currentTick);
+            mobStates[i] = new WorldSnapshot.MobState(mob.getId(), mob.getXPosition(), mob.getYPosition(),
+                    (int) mob.getHealth());
+            mobStates[i].healthChangeTick = mob.getHealthChangeTick();
+            visibleMobs.insert(mobStates[i], mobStates[i].xPosition, mobStates[i].yPosition);
+            i++;
+        }
+
+        return new WorldSnapshot(currentTick, playZone.getTimer(), playZone.stage(),
+                playerStates, spellStates, mobStates);
+    }
+
+    /**
+     * Filter snapshot to what is near the given player and encode it against the last snapshot they acknowledged.
+     *
+     * @param playerId player who the snapshot is sent to
+     * @param snapshot full snapshot of the current tick
+     * @return snapshot that should be sent to the player
+     */
+    public WorldSnapshot encodeSnapshot(Integer playerId, WorldSnapshot snapshot) {
+        PlayerCharacter player = gamePlayers.get(playerId);
+        if (player != null) {
+            snapshot = filterSnapshot(snapshot, player.getXPosition(), player.getYPosition());
+        }
+        return snapshotHistories.computeIfAbsent(playerId, id -> new SnapshotHistory()).encode(snapshot);
+    }
+
+    /**
+     * Create snapshot that only contains entities within view radius of the given point.
+     *
+     * @param snapshot full snapshot of the current tick
+     * @param x viewer's x coordinate
+     * @param y viewer's y coordinate
+     * @return filtered snapshot
+     */
+    private WorldSnapshot filterSnapshot(WorldSnapshot snapshot, float x, float y) {
+        List<WorldSnapshot.PlayerState> nearPlayers = new ArrayList<>();
+        visiblePlayers.query(x, y, Constants.VIEW_RADIUS, nearPlayers);
+        List<WorldSnapshot.SpellState> nearSpells = new ArrayList<>();
+        visibleSpells.query(x, y, Constants.VIEW_RADIUS, nearSpells);
+        List<WorldSnapshot.MobState> nearMobs = new ArrayList<>();
+        visibleMobs.query(x, y, Constants.VIEW_RADIUS, nearMobs);
+
+        return new WorldSnapshot(snapshot.tick, snapshot.zoneTimer, snapshot.zoneStage,
+                nearPlayers.toArray(new WorldSnapshot.PlayerState[0]),
+                nearSpells.toArray(new WorldSnapshot.SpellState[0]),
+                nearMobs.toArray(new WorldSnapshot.MobState[0]));
+    }
+
+    /**
+     * Mark snapshot as received by the player.
+     *
+     * @param playerId player who received the snapshot
+     * @param tick tick of the received snapshot
+     */
+    public void acknowledgeSnapshot(Integer playerId, int tick) {
+        SnapshotHistory history = snapshotHistories.get(playerId);
+        if (history != null) {
+            history.acknowledge(tick);
+        }
+    }
+
     /**
      * Updating game values.
      */
     public void update() {
+        currentTick++;
         playZone.updateZone(currentTime);
         world.step(1 / 60f, 6, 2); // Stepping world to update bodies
         currentTime = (int) ((System.currentTimeMillis() - startTime) / 1000);
@@ -425,9 +577,7 @@ public class Game {
         for (Integer spellToDispel : spellsToDispel) {
             if (spells.containsKey(spellToDispel)) {
                 spells.get(spellToDispel).removeSpellBody(world);
-                for (Integer playerId : gamePlayers.keySet()) {
-                    server.server.sendToUDP(playerId, new SpellDispel(spells.get(spellToDispel).getSpellId()));
-                }
+                server.broadcastUDP(gamePlayers.keySet(), new SpellDispel(spells.get(spellToDispel).getSpellId()));
                 spells.remove(spellToDispel);
             }
         }
@@ -487,10 +637,123 @@ public class Game {
         itemsToRemove.clear();
     }
 
+    /**
+     * Get flow field towards the player, shared by every mob that chases them.
+     * A new field is empty until scheduleMobs() computes it, until then mobs find their own paths.
+     *
+     * @param player chased player
+     * @return flow field
+     */
+    public FlowField getFlowField(PlayerCharacter player) {
+        FlowField field = flowFields.get(player.playerID);
+        if (field == null) {
+            field = idleFlowFields.isEmpty()
+                    ? new FlowField(server.pathFinding.getMobGrid(), Constants.FLOW_FIELD_RADIUS,
+                            Constants.FLOW_FIELD_REFRESH_TICKS, Constants.PATH_FINDING_MODE.isDiagonal())
+                    : idleFlowFields.pop();
+            field.assign(player.playerID, currentTick);
+            flowFields.put(player.playerID, field);
+        }
+        return field;
+    }
+
+    /**
+     * Put fields that nobody has read during the last refresh period back to the pool
+     * and recompute the others every FLOW_FIELD_REFRESH_TICKS if their player has moved.
+     * At most MAX_FLOW_FIELD_UPDATES_PER_TICK fields are computed, the rest stay due for the next tick.
+     */
+    private void updateFlowFields() {
+        int updates = 0;
+        Iterator<FlowField> iterator = flowFields.values().iterator();
+        while (iterator.hasNext()) {
+            FlowField field = iterator.next();
+            PlayerCharacter player = gamePlayers.get(field.getTargetId());
+            if (player == null || currentTick - field.getLastUsedTick() > Constants.FLOW_FIELD_REFRESH_TICKS) {
+                iterator.remove();
+                field.assign(FlowField.NO_TARGET, currentTick); // Mobs that still hold the field look it up again
+                idleFlowFields.push(field);
+            } else if (updates < Constants.MAX_FLOW_FIELD_UPDATES_PER_TICK && field.isRefreshDue(currentTick)
+                    && updateFlowField(field, player)) {
+                updates++;
+            }
+        }
+    }
+
+    /**
+     * Recompute the field towards the player's cell.
+     *
+     * @param field player's flow field
+     * @param player chased player
+     * @return true if the field was computed, false if the player has not moved to another cell
+     */
+    private boolean updateFlowField(FlowField field, PlayerCharacter player) {
+        int playerX = (int) Math.floor(player.getXPosition() * 4);
+        int playerY = (int) Math.floor(player.getYPosition() * 4);
+        int target = server.pathFinding.findClosestMobCell(playerX, playerY); // Player can stand closer to walls
+        if (target != -1) {
+            playerX = Grid.cellX(target);
+            playerY = Grid.cellY(target);
+        }
+        return field.update(playerX, playerY, currentTick);
+    }
+
+    /**
+     * Get how many ticks the game has been updated.
+     *
+     * @return current tick
+     */
+    public int getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Refresh flow fields, freeze mobs that are far from players, let the mobs whose turn it is think
+     * and continue the game's path searches.
+     */
+    public void scheduleMobs() {
+        updateFlowFields();
+        mobScheduler.tick(mobs.values(), gamePlayers.values(), deadPlayers, currentTick);
+        server.pathFinding.runSearches(gameId);
+    }
+
+    /**
+     * Request path for a mob in this game from the server's shared path finding.
+     *
+     * @param srcX source node's x
+     * @param srcY source node's y
+     * @param dstX destination node's x
+     * @param dstY destination node's y
+     * @return future path as cells, or null if the search should be requested again later
+     */
+    public CompletableFuture<int[]> requestPath(int srcX, int srcY, int dstX, int dstY) {
+        return server.pathFinding.requestPath(gameId, srcX, srcY, dstX, dstY);
+    }
+
+    /**
+     * Find the closest cell where mob's body fits.
+     *
+     * @param x cell's x
+     * @param y cell's y
+     * @return the same cell if mob fits there, -1 if there is no such cell close by
+     */
+    public int findClosestMobCell(int x, int y) {
+        return server.pathFinding.findClosestMobCell(x, y);
+    }
+
+    /**
+     * Get connected components and wander points of the grid for the mobs.
+     *
+     * @return reachability index shared by every game
+     */
+    public ReachabilityIndex getReachability() {
+        return server.pathFinding.getReachability();
+    }
+
     /**
      * End the current game, let the player's know who won and dispose everything.
      */
     public void endGame() {
+        server.pathFinding.removeGame(gameId);
 
         // *-------- REMOVE EVERYTHING --------*
         for (Mob mob : mobs.values()) {
@@ -512,17 +775,13 @@ public class Game {
             Integer winnerId = difference.iterator().next();
 
             // Send game over message to everyone who is still in the game
-            for (Integer playerId : lobby.players) {
-                server.server.sendToTCP(playerId, new GameOver(winnerId));
-            }
+            server.broadcastTCP(lobby.players, new GameOver(winnerId));
         } else {
             // *-------------- GETTING WINNER ID -------------*
             Integer winnerId = deadPlayers.getLast().playerID; // Get player's ID who was added to dead list later
 
             // Send game over message to everyone who is still in the game
-            for (Integer playerId : lobby.players) {
-                server.server.sendToTCP(playerId, new GameOver(winnerId));
-            }
+            server.broadcastTCP(lobby.players, new GameOver(winnerId));
         }
     }
 }
@@ -0,0 +1,88 @@
+package ee.taltech.server.components;
+
+import ee.taltech.server.entities.Mob;
+import ee.taltech.server.entities.PlayerCharacter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spreads mobs' thinking over ticks and freezes mobs that no player is near.
+ * Only a limited number of active mobs think each tick, taking turns, while every active mob still moves every tick.
+ * Living players are indexed by position every tick, mobs look up players near them from the index.
+ */
+public class MobScheduler {
+    private final List<Mob> turnOrder; // Reused every tick
+    private final SpatialGrid<PlayerCharacter> livingPlayers;
+    private final List<PlayerCharacter> nearPlayers; // Reused for every query
+    private int nextTurn; // Index in the turn order of the mob that thinks first on the next tick
+
+    /**
+     * Construct MobScheduler.
+     */
+    public MobScheduler() {
+        this.turnOrder = new ArrayList<>();
+        this.livingPlayers = new SpatialGrid<>(Constants.WORLD_SIZE, Constants.INTEREST_CELL_SIZE);
+        this.nearPlayers = new ArrayList<>();
+        this.nextTurn = 0;
+    }
+
+    /**
+     * Freeze or wake up mobs by their distance to players, update players in the mobs' triggering ranges
+     * and let the next mobs in turn think.
+     *
+     * @param mobs game's mobs
+     * @param players game's players
+     * @param deadPlayers players that are dead and do not wake mobs up
+     * @param currentTick game's current tick
+     */
+    public void tick(Collection<Mob> mobs, Collection<PlayerCharacter> players,
+                     Collection<PlayerCharacter> deadPlayers, int currentTick) {
+        livingPlayers.clear();
+        for (PlayerCharacter player : players) {
+            if (!deadPlayers.contains(player)) {
+                livingPlayers.insert(player, player.getXPosition(), player.getYPosition());
+            }
+        }
+
+        turnOrder.clear();
+        for (Mob mob : mobs) {
+            // Staggered by id, so the distance checks are spread over ticks as well
+            if ((currentTick + mob.getId()) % Constants.MOB_ACTIVITY_CHECK_TICKS == 0) {
+                mob.setActive(findNearPlayers(mob, Constants.MOB_ACTIVE_RADIUS));
+            }
+            if (!mob.isActive()) {
+                continue;
+            }
+            if ((currentTick + mob.getId()) % Constants.MOB_AGGRO_CHECK_TICKS == 0) {
+                findNearPlayers(mob, Constants.TRIGGERING_RANGE_RADIUS);
+                mob.updatePlayersInRange(nearPlayers);
+            }
+            turnOrder.add(mob);
+        }
+        if (turnOrder.isEmpty()) {
+            return;
+        }
+
+        int thinks = Math.min(Constants.MOB_THINKS_PER_TICK, turnOrder.size());
+        int first = nextTurn % turnOrder.size();
+        for (int i = 0; i < thinks; i++) {
+            turnOrder.get((first + i) % turnOrder.size()).think();
+        }
+        nextTurn = first + thinks;
+    }
+
+    /**
+     * Find living players that are within the radius of the mob.
+     *
+     * @param mob mob whose surroundings are checked
+     * @param radius search radius
+     * @return true if any player was found, found players are left in near players list
+     */
+    private boolean findNearPlayers(Mob mob, float radius) {
+        nearPlayers.clear();
+        livingPlayers.query(mob.getXPosition(), mob.getYPosition(), radius, nearPlayers);
+        return !nearPlayers.isEmpty();
+    }
+}
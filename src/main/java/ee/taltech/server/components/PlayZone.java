@@ -11,6 +11,7 @@ public class PlayZone {
     private int thirdZoneY;
     private int timer;
     private int stage;
+    private boolean stageChanged; // Stage changed since it was last sent
 
     public int stage() {
         return stage;
@@ -51,6 +52,7 @@ public class PlayZone {
      */
     public void updateZone(int startTime) {
         timer = startTime;
+        int previousStage = stage;
         if (timer > 30 && timer < 60) {
             // *---first marker---*
             stage = 1;
@@ -71,6 +73,24 @@ public class PlayZone {
             // final countdown
             stage = 6;
         }
+        if (stage != previousStage) {
+            stageChanged = true;
+        }
+    }
+
+    /**
+     * Has stage changed since the last clearChanges() call.
+     * @return - true if stage should be sent.
+     */
+    public boolean isStageChanged() {
+        return stageChanged;
+    }
+
+    /**
+     * Mark stage as sent.
+     */
+    public void clearChanges() {
+        stageChanged = false;
     }
 
     /**
@@ -0,0 +1,92 @@
+package ee.taltech.server.components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uniform grid over the world for finding elements near a point.
+ *
+ * @param <T> type of the elements in the grid
+ */
+public class SpatialGrid<T> {
+    private final float cellSize;
+    private final int columns;
+    private final List<List<Entry<T>>> cells;
+
+    /**
+     * Construct SpatialGrid.
+     *
+     * @param worldSize width and height of the world
+     * @param cellSize width and height of one grid cell
+     */
+    public SpatialGrid(float worldSize, float cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(worldSize / cellSize);
+        this.cells = new ArrayList<>(columns * columns);
+        for (int i = 0; i < columns * columns; i++) {
+            cells.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Remove all elements from the grid.
+     */
+    public void clear() {
+        for (List<Entry<T>> cell : cells) {
+            cell.clear();
+        }
+    }
+
+    /**
+     * Add element to the grid.
+     *
+     * @param element element that is added
+     * @param x element's x coordinate
+     * @param y element's y coordinate
+     */
+    public void insert(T element, float x, float y) {
+        cells.get(getCell(y) * columns + getCell(x)).add(new Entry<>(element, x, y));
+    }
+
+    /**
+     * Find all elements that are within the radius of the given point.
+     *
+     * @param x point's x coordinate
+     * @param y point's y coordinate
+     * @param radius search radius
+     * @param result list where found elements are added
+     */
+    public void query(float x, float y, float radius, List<T> result) {
+        int minColumn = getCell(x - radius);
+        int maxColumn = getCell(x + radius);
+        int minRow = getCell(y - radius);
+        int maxRow = getCell(y + radius);
+        float radiusSquared = radius * radius;
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (Entry<T> entry : cells.get(row * columns + column)) {
+                    float dx = entry.x() - x;
+                    float dy = entry.y() - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        result.add(entry.element());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get grid cell's column or row for the coordinate.
+     * Coordinates outside the world are put into the closest cell.
+     *
+     * @param coordinate x or y coordinate
+     * @return column or row
+     */
+    private int getCell(float coordinate) {
+        return Math.clamp((int) (coordinate / cellSize), 0, columns - 1);
+    }
+
+    private record Entry<T>(T element, float x, float y) {
+    }
+}
@@ -4,8 +4,10 @@ import com.badlogic.gdx.physics.box2d.*;
 import ee.taltech.server.components.Constants;
 import ee.taltech.server.components.ItemTypes;
 import ee.taltech.server.entities.collision.CollisionBodyTypes;
+import ee.taltech.server.entities.collision.CollisionLayer;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ee.taltech.server.components.Constants.*;
 
@@ -17,7 +19,7 @@ public class Item implements Entity {
     private float yPosition;
     private Body body;
     private PlayerCharacter collidingWith;
-    private static int currentId = 1;
+    private static final AtomicInteger currentId = new AtomicInteger(1);
 
     /**
      * Construct Item.
@@ -27,7 +29,7 @@ public class Item implements Entity {
      * @param yPosition item's y coordinate
      */
     public Item(ItemTypes type, float xPosition, float yPosition) {
-        this.id = currentId++;
+        this.id = currentId.getAndIncrement();
         this.type = type;
         this.xPosition = xPosition;
         this.yPosition = yPosition;
@@ -156,6 +158,7 @@ public class Item implements Entity {
         FixtureDef fixtureDef = new FixtureDef();
         fixtureDef.shape = hitBoxShape;
         fixtureDef.isSensor = true; // Will work if we change movement from teleporting to vectors
+        CollisionLayer.ITEM.apply(fixtureDef);
         hitBoxBody.createFixture(fixtureDef);
 
         // Clean up
@@ -2,50 +2,74 @@ package ee.taltech.server.entities;
 
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
-import ee.taltech.server.ai.AStarPathFinding;
 import ee.taltech.server.ai.Grid;
-import ee.taltech.server.ai.Node;
+import ee.taltech.server.ai.FlowField;
+import ee.taltech.server.ai.PathFinder;
+import ee.taltech.server.ai.PathSmoothing;
 import ee.taltech.server.components.Constants;
 import ee.taltech.server.components.Game;
 import ee.taltech.server.entities.collision.CollisionBodyTypes;
+import ee.taltech.server.entities.collision.CollisionLayer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Mob implements Entity {
     private final Integer id;
+    private final Game game;
     private Body body;
     private float xPosition;
     private float yPosition;
     private int sourceNodeX;
     private int sourceNodeY;
     private float health;
-    private final AStarPathFinding aStar;
+    private boolean healthChanged; // Health changed since the last snapshot
+    private int healthChangeTick; // Tick of the last snapshot where health had changed
     private final List<PlayerCharacter> playersInRange;
-    private List<Node> currentPath;
-    private Node nextNode;
+    private int[] currentPath; // Cells to walk through
+    private int pathIndex; // Index of the next cell in the current path
+    private int nextCell;
+    private CompletableFuture<int[]> pendingPath; // Search that has not been collected yet
+    private boolean followingPlayer; // Is the pending search for a path to a player
+    private boolean followingFlowField; // Did the chased player's flow field give the last step
+    private FlowField chaseField; // Chased player's flow field, looked up again when it is given to another player
+    // Computed field could not guide the mob, so it follows and repairs its own path to the player until the path
+    // ends instead of switching back and forth at the field's edge
+    private boolean outsideChaseField;
+    private boolean active; // Inactive mobs are far from players, they do not think, move or collide
+    private int lastCell; // Cell where mob was on the previous tick
+    private int ticksWithoutProgress; // Ticks mob has tried to move without leaving its cell
+    private int stuckCount; // Times mob has got stuck without reaching a cell of its path in between
+    private int backOffTicks; // Ticks left until a stuck mob moves and thinks again
+    private int pathTargetCell = -1; // Player's cell that the current path leads to, -1 if not chasing
+    private int pendingTargetCell; // Player's cell that the pending search leads to
+    private int pendingSpliceIndex = -1; // Index in the current path where pending search starts, -1 for full path
 
     private Vector2 movement;
 
-    private static Integer currentId = 0;
+    private static final AtomicInteger currentId = new AtomicInteger(0);
     /**
      * Get new ID for each mob.
      *
      * @return integers starting from 0
      */
     private static Integer getNewId() {
-        return currentId++;
+        return currentId.getAndIncrement();
     }
 
     /**
      * Construct Mob.
      *
+     * @param game game that the mob is in
      * @param x mob's initial x coordinate
      * @param y mob's initial y coordinate
      */
-    public Mob(float x, float y) {
+    public Mob(Game game, float x, float y) {
         this.id = getNewId();
+        this.game = game;
         this.body = null;
         this.xPosition = x;
         this.yPosition = y;
@@ -53,16 +77,20 @@ public class Mob implements Entity {
         this.sourceNodeY = getSourceNodeY();
         this.health = Constants.MOB_HEALTH;
 
-        this.aStar = new AStarPathFinding();
         this.playersInRange = new ArrayList<>();
-        this.currentPath = new ArrayList<>();
-        this.nextNode = null;
+        this.currentPath = PathFinder.NO_PATH;
+        this.pathIndex = 0;
+        this.nextCell = -1;
+        this.pendingPath = null;
+        this.active = true;
+        this.lastCell = -1;
 
         movement = new Vector2();
     }
 
     /**
-     * Create mob's body with 3 fixtures.
+     * Create mob's body with a hit box fixture.
+     * Players in the triggering range are found by the game's mob scheduler, not by a fixture.
      *
      * @param world world, where bodies are in
      */
@@ -83,21 +111,10 @@ public class Mob implements Entity {
         FixtureDef hitBoxFixtureDef = new FixtureDef();
         hitBoxFixtureDef.shape = hitBoxShape;
         hitBoxFixtureDef.isSensor = true;
+        CollisionLayer.MOB_HIT_BOX.apply(hitBoxFixtureDef);
         mobBody.createFixture(hitBoxFixtureDef).setUserData(List.of(this, CollisionBodyTypes.HIT_BOX));
         hitBoxShape.dispose(); // Clean up
 
-        // *----- TRIGGERING RANGE -----*
-        // Create a fixture for triggering range
-        CircleShape triggeringShape = new CircleShape();
-        triggeringShape.setRadius(Constants.TRIGGERING_RANGE_RADIUS);
-
-        // Attach the fixture to the body
-        FixtureDef triggeringFixtureDef = new FixtureDef();
-        triggeringFixtureDef.shape = triggeringShape;
-        triggeringFixtureDef.isSensor = true;
-        mobBody.createFixture(triggeringFixtureDef).setUserData(List.of(this, CollisionBodyTypes.TRIGGERING_RANGE));
-        triggeringShape.dispose(); // Clean up
-
         body = mobBody;
     }
 
@@ -105,7 +122,9 @@ public class Mob implements Entity {
      * Remove body.
      */
     public void removeBody(World world) {
-        aStar.closePathFindingThread(); // Close path finding thread
+        if (pendingPath != null) {
+            pendingPath.cancel(false); // Nobody will collect the path anymore
+        }
 
         if (body != null) {
             world.destroyBody(body); // Destroy the mob's body
@@ -113,6 +132,32 @@ public class Mob implements Entity {
         }
     }
 
+    /**
+     * Is the mob simulated.
+     *
+     * @return false if mob is frozen
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Freeze the mob or wake it up. Frozen mob's body is taken out of the physics simulation.
+     *
+     * @param active true to simulate the mob
+     */
+    public void setActive(boolean active) {
+        if (this.active == active || body == null) {
+            return;
+        }
+        this.active = active;
+        body.setLinearVelocity(0, 0);
+        body.setActive(active);
+        if (!active) {
+            playersInRange.clear(); // No player is near a frozen mob
+        }
+    }
+
     /**
      * Get mob's ID.
      *
@@ -155,9 +200,33 @@ public class Mob implements Entity {
      * @param newHealth new mob's health
      */
     public void setHealth(float newHealth) {
+        if ((int) newHealth != (int) health) { // Clients only see whole health points
+            healthChanged = true;
+        }
         health = newHealth;
     }
 
+    /**
+     * Get tick of the last snapshot where health had changed.
+     *
+     * @return tick, 0 if health has not changed
+     */
+    public int getHealthChangeTick() {
+        return healthChangeTick;
+    }
+
+    /**
+     * Remember the snapshot's tick if health changed since the previous snapshot.
+     *
+     * @param tick snapshot's tick
+     */
+    public void clearChanges(int tick) {
+        if (healthChanged) {
+            healthChangeTick = tick;
+        }
+        healthChanged = false;
+    }
+
     /**
      * Get current/source node's X value.
      *
@@ -177,150 +246,283 @@ public class Mob implements Entity {
     }
 
     /**
-     * Add player to players in range list.
+     * Update players in range list with the players that are in the triggering range now.
+     * Players keep their order, so the mob keeps chasing the player that came into range first.
      *
-     * @param playerCharacter player that is added
+     * @param nearPlayers living players in the triggering range
      */
-    public void addPlayerInRange(PlayerCharacter playerCharacter) {
-        playersInRange.add(playerCharacter);
+    public void updatePlayersInRange(List<PlayerCharacter> nearPlayers) {
+        playersInRange.retainAll(nearPlayers);
+        for (PlayerCharacter player : nearPlayers) {
+            if (!playersInRange.contains(player)) {
+                playersInRange.add(player);
+            }
+        }
     }
 
     /**
-     * Remove player from players in range list.
-     *
-     * @param playerCharacter player that is removed
+     * Decide where to go: take finished searches into use and request new paths if needed.
+     * Called by the game's mob scheduler, which spreads the mobs' thinking over ticks.
+     * Paths are found on the path finding workers, until a new path arrives mob follows its current one.
      */
-    public void removePlayerInRange(PlayerCharacter playerCharacter) {
-        playersInRange.remove(playerCharacter);
+    public void think() {
+        if (backOffTicks > 0) { // Stuck mob does not ask for paths until it has waited
+            return;
+        }
+        // Update source node values
+        sourceNodeX = getSourceNodeX();
+        sourceNodeY = getSourceNodeY();
+
+        collectPath();
+        if (followingFlowField) { // Chased player's flow field tells the next step, no own search needed
+            return;
+        }
+        if (pendingPath == null && !playersInRange.isEmpty()) { // Start following player
+            PlayerCharacter firstPlayer = playersInRange.getFirst(); // First player that was in range
+            // Ask for the best path to a first enemy that was in range
+            requestPathToPlayer(firstPlayer.getXPosition(), firstPlayer.getYPosition());
+        }
+        if (pendingPath == null && !hasPath()) { // No player to follow
+            requestRandomPath();
+        }
     }
 
     /**
-     * Update mob's position and calculate new path if needed.
+     * Update mob's position by moving towards the next cell of its path, every tick while the mob is active.
      */
     public void updatePosition() {
         // Update source node values
         sourceNodeX = getSourceNodeX();
         sourceNodeY = getSourceNodeY();
 
-        if (!playersInRange.isEmpty()) { // Start following player
-            PlayerCharacter firstPlayer = playersInRange.getFirst(); // First player that was in range
-            // Get the best path to a first enemy that was in range
-            currentPath = getPathFromAStar(
-                    firstPlayer.getXPosition(),
-                    firstPlayer.getYPosition());
+        if (backOffTicks > 0) { // Got stuck, stand still before trying again
+            backOffTicks--;
+            body.setLinearVelocity(0, 0);
+            return;
+        }
+        checkProgress();
+
+        int flowStep = getFlowFieldStep();
+        followingFlowField = flowStep != -1;
+        if (followingFlowField) {
+            currentPath = PathFinder.NO_PATH;
+            pathIndex = 0;
+            pathTargetCell = -1;
+            nextCell = flowStep;
+        } else {
+            // Change to a next node if mob has moved enough
+            if (nextCell == -1 || nextCell == Grid.toCell(sourceNodeX, sourceNodeY)) {
+                if (nextCell != -1) { // Reached a cell of the path
+                    stuckCount = 0;
+                }
+                if (!hasPath()) { // Wait for the next path
+                    nextCell = -1;
+                    body.setLinearVelocity(0, 0);
+                    return;
+                }
+                // Get and remove (pop) first node from the path
+                nextCell = currentPath[pathIndex++];
+            }
+        }
+        if (nextCell == Grid.toCell(sourceNodeX, sourceNodeY)) { // Already at the chased player's cell
+            body.setLinearVelocity(0, 0);
+        } else { // Move straight towards the center of the next waypoint
+            movement.set((Grid.cellX(nextCell) + 0.5f) / 4 - xPosition, (Grid.cellY(nextCell) + 0.5f) / 4 - yPosition);
+            move();
         }
 
-        if (currentPath.isEmpty() || currentPath.size() >= Constants.MAX_PATH_RANGE) { // No player to follow
-            currentPath = chooseRandomPath(); // Make a random path our current one
+        // Update x and y position
+        xPosition = body.getPosition().x;
+        yPosition = body.getPosition().y;
+    }
+
+    /**
+     * Count ticks that mob has tried to move without leaving its cell.
+     * Stuck mob forgets its path and waits before thinking again, longer every time it gets stuck in a row,
+     * so it does not keep asking for paths it can not follow.
+     */
+    private void checkProgress() {
+        int cell = Grid.toCell(sourceNodeX, sourceNodeY);
+        if (cell != lastCell || nextCell == -1 || nextCell == cell) { // Moved, or is not trying to
+            lastCell = cell;
+            ticksWithoutProgress = 0;
+            return;
         }
+        ticksWithoutProgress++;
+        if (ticksWithoutProgress < Constants.MOB_STUCK_TICKS) {
+            return;
+        }
+        currentPath = PathFinder.NO_PATH;
+        pathIndex = 0;
+        pathTargetCell = -1;
+        nextCell = -1;
+        ticksWithoutProgress = 0;
+        backOffTicks = Math.min(Constants.MOB_MAX_BACK_OFF_TICKS,
+                Constants.MOB_BACK_OFF_TICKS << Math.min(stuckCount, 16));
+        stuckCount++;
+    }
 
-        // Change to a next node if mob has moved enough
-        if (nextNode == null || nextNode.getX() == sourceNodeX && nextNode.getY() == sourceNodeY) {
-            // Get and remove (pop) first node from the path
-            nextNode = currentPath.getFirst();
-            currentPath.removeFirst();
+    /**
+     * Get next step towards the chased player from their flow field.
+     *
+     * @return next cell, -1 if flow fields are not used, no player is chased, the field is not computed yet,
+     *         or mob is outside the field or still follows its own path after leaving it
+     */
+    private int getFlowFieldStep() {
+        if (!Constants.FLOW_FIELD_CHASE || playersInRange.isEmpty()) {
+            return -1;
         }
+        PlayerCharacter player = playersInRange.getFirst(); // First player that was in range
+        if (chaseField == null || chaseField.getTargetId() != player.getPlayerID()) {
+            chaseField = game.getFlowField(player);
+            outsideChaseField = false;
+        }
+        chaseField.markUsed(game.getCurrentTick());
+        if (outsideChaseField && (pathTargetCell != -1 && hasPath() || pendingPath != null && followingPlayer)) {
+            return -1;
+        }
+        int step = chaseField.getNextCell(sourceNodeX, sourceNodeY);
+        outsideChaseField = step == -1 && chaseField.isComputed();
+        return step;
+    }
 
-        // Reset current movement
-        movement.x = 0;
-        movement.y = 0;
-
-        // Move according to the next nodes position
-        if (nextNode.getX() < sourceNodeX && nextNode.getY() < sourceNodeY) { // Move diagonally left down
-            move("left_down");
-        } else if (nextNode.getX() > sourceNodeX && nextNode.getY() < sourceNodeY) { // Move diagonally right down
-            move("right_down");
-        } else if (nextNode.getX() < sourceNodeX && nextNode.getY() > sourceNodeY) { // Move diagonally left up
-            move("left_up");
-        } else if (nextNode.getX() > sourceNodeX && nextNode.getY() > sourceNodeY) { // Move diagonally right up
-            move("right_up");
-        } else if (nextNode.getX() < sourceNodeX && nextNode.getY() == sourceNodeY) { // Move left
-            move("left");
-        } else if (nextNode.getX() > sourceNodeX && nextNode.getY() == sourceNodeY) { // Move right
-            move("right");
-        } else if (nextNode.getX() == sourceNodeX && nextNode.getY() < sourceNodeY) { // Move down
-            move("down");
-        } else if (nextNode.getX() == sourceNodeX && nextNode.getY() > sourceNodeY) { // Move up
-            move("up");
+    /**
+     * Take the requested path into use if the search has finished.
+     * Paths that are empty or too long are thrown away and the current path is kept,
+     * if the player can not be reached and there is no path left the mob starts wandering.
+     */
+    private void collectPath() {
+        if (pendingPath == null || !pendingPath.isDone()) {
+            return;
+        }
+        int[] path = pendingPath.getNow(PathFinder.NO_PATH);
+        pendingPath = null;
+        if (pendingSpliceIndex != -1 && path.length > 0) {
+            path = splicePath(path);
         }
+        if (path.length > 0 && PathSmoothing.getLength(sourceNodeX, sourceNodeY, path) < Constants.MAX_PATH_RANGE) {
+            currentPath = path;
+            pathIndex = 0;
+            pathTargetCell = followingPlayer ? pendingTargetCell : -1;
+        } else if (pendingSpliceIndex != -1) { // Repair failed, next time search the whole path
+            pathTargetCell = -1;
+        } else if (followingPlayer && !hasPath()) {
+            requestRandomPath();
+        }
+    }
 
-        // Update x and y position
-        xPosition = body.getPosition().x;
-        yPosition = body.getPosition().y;
+    /**
+     * Join the current path up to the splice cell with the searched tail.
+     *
+     * @param tail path from the splice cell to the player's new cell
+     * @return spliced path, NO_PATH if mob has already walked past the splice cell
+     */
+    private int[] splicePath(int[] tail) {
+        if (pathIndex > pendingSpliceIndex) { // Mob moved on while the tail was searched
+            return PathFinder.NO_PATH;
+        }
+        int prefixLength = pendingSpliceIndex + 1 - pathIndex;
+        int[] path = new int[prefixLength + tail.length];
+        System.arraycopy(currentPath, pathIndex, path, 0, prefixLength);
+        System.arraycopy(tail, 0, path, prefixLength, tail.length);
+        return path;
     }
 
     /**
-     * Choose random path that is in the triggering range.
+     * Find the cell in the rest of the current path that is closest to the given cell.
      *
-     * @return new chosen random path
+     * @param x cell's x
+     * @param y cell's y
+     * @return index in the current path
      */
-    private List<Node> chooseRandomPath() {
-        while (true) { // Try random X and Y values until pathing there is possible
-            int randomX = Game.random.nextInt((int) (sourceNodeX - Constants.TRIGGERING_RANGE_RADIUS * 4),
-                    (int) (sourceNodeX + (Constants.TRIGGERING_RANGE_RADIUS * 4) + 1));
-            int randomY = Game.random.nextInt((int) (sourceNodeY -  Constants.TRIGGERING_RANGE_RADIUS * 4),
-                    (int) (sourceNodeY +  (Constants.TRIGGERING_RANGE_RADIUS * 4) + 1));
-
-            if (0 < randomX && randomX < Constants.MAX_X_NODE
-                    && 0 < randomY && randomY < Constants.MAX_Y_NODE
-                    && Grid.grid[randomY][randomX] == 0 && randomX != sourceNodeX && randomY != sourceNodeY) {
-                List<Node> path = aStar.findPath(sourceNodeX, sourceNodeY, randomX, randomY);
-                if (!path.isEmpty() && path.size() < Constants.MAX_PATH_RANGE) {
-                    return path;
-                }
+    private int getClosestPathIndex(int x, int y) {
+        int closestIndex = pathIndex;
+        int closestDistance = Integer.MAX_VALUE;
+        for (int i = pathIndex; i < currentPath.length; i++) {
+            int distance = Math.abs(Grid.cellX(currentPath[i]) - x) + Math.abs(Grid.cellY(currentPath[i]) - y);
+            if (distance < closestDistance) {
+                closestIndex = i;
+                closestDistance = distance;
             }
         }
+        return closestIndex;
     }
 
     /**
-     * Get a path from A* based on destination coordinates.
+     * Are there cells left in the current path.
      *
-     * @param destX destination x coordinate
-     * @param destY destination y coordinate
-     * @return gotten path
+     * @return true if mob has somewhere to go
+     */
+    private boolean hasPath() {
+        return pathIndex < currentPath.length;
+    }
+
+    /**
+     * Request random path that is in the triggering range.
+     * Only wander points in mob's own component are chosen, if none is found mob tries again on the next tick.
      */
-    private List<Node> getPathFromAStar(float destX, float destY) {
-        int destNodesX = (int) Math.floor(destX * 4);
-        int destNodesY = (int) Math.floor(destY * 4);
-        // Check that player's coordinates are not in the map
-        if (Grid.grid[destNodesY][destNodesX] == 0) {
-            return aStar.findPath(sourceNodeX, sourceNodeY, destNodesX, destNodesY);
+    private void requestRandomPath() {
+        int source = game.findClosestMobCell(sourceNodeX, sourceNodeY); // Searches start from there as well
+        if (source == -1) {
+            return;
+        }
+        int point = game.getReachability().chooseWanderPoint(Grid.cellX(source), Grid.cellY(source),
+                (int) (Constants.TRIGGERING_RANGE_RADIUS * 4), Constants.WANDER_ATTEMPTS, Game.random);
+        if (point != -1) {
+            // If there is no path there, another one is chosen when the search has finished
+            pendingPath = game.requestPath(sourceNodeX, sourceNodeY, Grid.cellX(point), Grid.cellY(point));
+            pendingSpliceIndex = -1;
+            followingPlayer = false;
         }
-        return List.of();
     }
 
     /**
-     * Move in given direction.
+     * Request a path from A* based on destination coordinates.
+     * If the player has moved only a little since the current path was planned the path is kept,
+     * otherwise the current path is kept up to its cell closest to the player and only the rest is searched again.
+     * Used when the chased player's flow field can not guide the mob: FLOW_FIELD_CHASE is off,
+     * the field is not computed yet, or the mob is outside the field's window or can not reach the player inside it.
      *
-     * @param direction given direction as string
+     * @param destX destination x coordinate
+     * @param destY destination y coordinate
      */
-    private void move(String direction) {
-        if (Objects.equals(direction, "left_down")) {
-            movement.x -= 1;
-            movement.y -= 1;
-        } else if (Objects.equals(direction, "right_down")) {
-            movement.x += 1;
-            movement.y -= 1;
-        } else if (Objects.equals(direction, "left_up")) {
-            movement.x -= 1;
-            movement.y += 1;
-        } else if (Objects.equals(direction, "right_up")) {
-            movement.x += 1;
-            movement.y += 1;
-        } else if (Objects.equals(direction, "left")) {
-            movement.x -= 1;
-        } else if (Objects.equals(direction, "right")) {
-            movement.x += 1;
-        } else if (Objects.equals(direction, "down")) {
-            movement.y -= 1;
-        } else if (Objects.equals(direction, "up")) {
-            movement.y += 1;
+    private void requestPathToPlayer(float destX, float destY) {
+        // Searches are done where mob's body fits, player can stand closer to walls
+        int source = game.findClosestMobCell(sourceNodeX, sourceNodeY);
+        int destCell = game.findClosestMobCell((int) Math.floor(destX * 4), (int) Math.floor(destY * 4));
+        if (source == -1 || destCell == -1 || !game.getReachability().isReachable(
+                Grid.cellX(source), Grid.cellY(source), Grid.cellX(destCell), Grid.cellY(destCell))) {
+            return;
         }
+        int destNodesX = Grid.cellX(destCell);
+        int destNodesY = Grid.cellY(destCell);
+        if (pathTargetCell == -1 || !hasPath()) { // Nothing to repair, search the whole path
+            pendingPath = game.requestPath(sourceNodeX, sourceNodeY, destNodesX, destNodesY);
+            pendingSpliceIndex = -1;
+        } else if (Math.abs(Grid.cellX(pathTargetCell) - destNodesX) + Math.abs(Grid.cellY(pathTargetCell) - destNodesY)
+                <= Constants.PATH_REPAIR_DISTANCE) { // Player is still close to where the path leads
+            return;
+        } else {
+            int spliceIndex = getClosestPathIndex(destNodesX, destNodesY);
+            int spliceCell = currentPath[spliceIndex];
+            if (spliceCell == destCell) { // Player is on the current path, drop the rest of it
+                currentPath = Arrays.copyOfRange(currentPath, pathIndex, spliceIndex + 1);
+                pathIndex = 0;
+                pathTargetCell = destCell;
+                return;
+            }
+            pendingPath = game.requestPath(Grid.cellX(spliceCell), Grid.cellY(spliceCell), destNodesX, destNodesY);
+            pendingSpliceIndex = spliceIndex;
+        }
+        pendingTargetCell = destCell;
+        followingPlayer = true;
+    }
 
+    /**
+     * Move in the direction of the movement vector with mob's speed.
+     */
+    private void move() {
         // Use scaling to scale movement up to wanted speed
-        Vector2 scaledMovement = movement.cpy().scl(Constants.MOB_MOVEMENT_SPEED);
-        float maxSpeed = Constants.MOB_MOVEMENT_SPEED * (float) Math.sqrt(2);
-        scaledMovement.clamp(maxSpeed, maxSpeed);
-        body.setLinearVelocity(scaledMovement);
+        body.setLinearVelocity(movement.nor().scl(Constants.MOB_MOVEMENT_SPEED));
     }
 }
@@ -5,6 +5,7 @@ import com.badlogic.gdx.physics.box2d.*;
 import ee.taltech.server.components.Constants;
 import ee.taltech.server.components.ItemTypes;
 import ee.taltech.server.entities.collision.CollisionBodyTypes;
+import ee.taltech.server.entities.collision.CollisionLayer;
 import ee.taltech.server.network.messages.game.KeyPress;
 
 import java.util.HashMap;
@@ -31,6 +32,10 @@ public class PlayerCharacter implements Entity {
 
     public float health;
     public float mana;
+    private boolean healthChanged; // Health or mana changed since the last snapshot
+    private boolean manaChanged;
+    private int healthChangeTick; // Tick of the last snapshot where health or mana had changed
+    private int manaChangeTick;
     private final Map<Integer, Item> inventory;
     private Integer coins;
     private Integer healingTicks;
@@ -107,6 +112,9 @@ public class PlayerCharacter implements Entity {
      * @param newHealth new health value
      */
     public void setHealth(float newHealth) {
+        if ((int) newHealth != (int) health) { // Clients only see whole health points
+            healthChanged = true;
+        }
         health = newHealth;
     }
 
@@ -116,9 +124,46 @@ public class PlayerCharacter implements Entity {
      * @param newMana new mana value
      */
     public void setMana(float newMana) {
+        if (Math.round(newMana) != Math.round(mana)) { // Clients only see whole mana points
+            manaChanged = true;
+        }
         mana = newMana;
     }
 
+    /**
+     * Get tick of the last snapshot where health had changed.
+     *
+     * @return tick, 0 if health has not changed
+     */
+    public int getHealthChangeTick() {
+        return healthChangeTick;
+    }
+
+    /**
+     * Get tick of the last snapshot where mana had changed.
+     *
+     * @return tick, 0 if mana has not changed
+     */
+    public int getManaChangeTick() {
+        return manaChangeTick;
+    }
+
+    /**
+     * Remember the snapshot's tick for the values that changed since the previous snapshot.
+     *
+     * @param tick snapshot's tick
+     */
+    public void clearChanges(int tick) {
+        if (healthChanged) {
+            healthChangeTick = tick;
+        }
+        if (manaChanged) {
+            manaChangeTick = tick;
+        }
+        healthChanged = false;
+        manaChanged = false;
+    }
+
     /**
      * Get player's healing ticks.
      *
@@ -304,12 +349,14 @@ public class PlayerCharacter implements Entity {
         FixtureDef fixtureDefCollisionCircle = new FixtureDef();
         fixtureDefCollisionCircle.shape = collisionCircle;
         fixtureDefCollisionCircle.density = 0.0f;
+        CollisionLayer.PLAYER_WORLD_COLLISION_BOX.apply(fixtureDefCollisionCircle);
 
         // Attach the fixture to the body
         FixtureDef fixtureDefHitbox = new FixtureDef();
         fixtureDefHitbox.shape = hitBoxShape;
         fixtureDefHitbox.density = 1.0f;
         fixtureDefHitbox.isSensor = true;
+        CollisionLayer.PLAYER_HIT_BOX.apply(fixtureDefHitbox);
 
 
         playerBody.createFixture(fixtureDefHitbox).setUserData(List.of(this, CollisionBodyTypes.HIT_BOX));
@@ -338,7 +385,7 @@ public class PlayerCharacter implements Entity {
     public void regenerateMana() {
         if (mana < 100){
             // Add mana every tick so that one second regenerates around 5 mana
-            mana = (float) Math.min(mana + Constants.MANA_REGEN, 100f); // Mana can not be over 100
+            setMana(Math.min(mana + Constants.MANA_REGEN, 100f)); // Mana can not be over 100
         }
     }
 
@@ -5,8 +5,10 @@ import com.badlogic.gdx.physics.box2d.*;
 import ee.taltech.server.components.Constants;
 import ee.taltech.server.components.ItemTypes;
 import ee.taltech.server.entities.collision.CollisionBodyTypes;
+import ee.taltech.server.entities.collision.CollisionLayer;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Spell implements Entity {
     private Vector2 spellVector;
@@ -17,7 +19,7 @@ public class Spell implements Entity {
     private Body spellBody;
     float spellXStart;
     float spellYStart;
-    private static int nextId = 1;
+    private static final AtomicInteger nextId = new AtomicInteger(1);
     private float manaCost;
     private float hitBoxSize;
     private float spellSpeed;
@@ -38,7 +40,7 @@ public class Spell implements Entity {
     public Spell(PlayerCharacter playerCharacter, double mouseXPosition, double mouseYPosition, ItemTypes type) {
         this.playerCharacter = playerCharacter;
         playerId = playerCharacter.getPlayerID();
-        spellId = nextId++;
+        spellId = nextId.getAndIncrement();
         this.type = type;
 
         setParametersBasedOnSpellType();
@@ -201,6 +203,7 @@ public class Spell implements Entity {
         FixtureDef fixtureDef = new FixtureDef();
         fixtureDef.shape = shape;
         fixtureDef.isSensor = true;
+        CollisionLayer.SPELL.apply(fixtureDef);
         body.createFixture(fixtureDef);
 
         // Dispose shape
@@ -3,7 +3,6 @@ package ee.taltech.server.entities.collision;
 public enum CollisionBodyTypes {
     HIT_BOX,
     WORLD_COLLISION_BOX,
-    TRIGGERING_RANGE,
     WORLD_CIRCLE,
     WORLD_RECTANGLE,
     WORLD_POLYGON,
@@ -0,0 +1,66 @@
+package ee.taltech.server.entities.collision;
+
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+
+/**
+ * Collision layers of the fixtures and which layers they can touch.
+ * Box2D skips pairs whose layers can not touch already in the broadphase,
+ * so only contacts that CollisionListener handles reach Java.
+ */
+public enum CollisionLayer {
+    TERRAIN,
+    PLAYER_HIT_BOX,
+    PLAYER_WORLD_COLLISION_BOX,
+    MOB_HIT_BOX,
+    SPELL,
+    ITEM;
+
+    /**
+     * Get layer's category bit.
+     *
+     * @return category bits with only this layer's bit set
+     */
+    public short getCategory() {
+        return (short) (1 << ordinal());
+    }
+
+    /**
+     * Get layers that this layer can touch. Every pair is listed for both of its layers.
+     *
+     * @return mask bits
+     */
+    public short getMask() {
+        return switch (this) {
+            case TERRAIN -> bits(PLAYER_WORLD_COLLISION_BOX, SPELL);
+            case PLAYER_HIT_BOX -> bits(MOB_HIT_BOX, SPELL);
+            case PLAYER_WORLD_COLLISION_BOX -> bits(TERRAIN, PLAYER_WORLD_COLLISION_BOX, ITEM);
+            case MOB_HIT_BOX -> bits(PLAYER_HIT_BOX, SPELL);
+            case SPELL -> bits(TERRAIN, PLAYER_HIT_BOX, MOB_HIT_BOX, SPELL);
+            case ITEM -> bits(PLAYER_WORLD_COLLISION_BOX);
+        };
+    }
+
+    /**
+     * Put fixture on this layer.
+     *
+     * @param fixtureDef definition of the fixture that is created
+     */
+    public void apply(FixtureDef fixtureDef) {
+        fixtureDef.filter.categoryBits = getCategory();
+        fixtureDef.filter.maskBits = getMask();
+    }
+
+    /**
+     * Combine layers' category bits.
+     *
+     * @param layers layers that are combined
+     * @return mask bits
+     */
+    private static short bits(CollisionLayer... layers) {
+        short bits = 0;
+        for (CollisionLayer layer : layers) {
+            bits |= layer.getCategory();
+        }
+        return bits;
+    }
+}
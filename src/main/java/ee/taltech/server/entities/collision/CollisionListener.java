@@ -78,16 +78,6 @@ public class CollisionListener implements ContactListener {
                 beginItemAndPlayerCollision(entityA, entityB);
             }
 
-            // If player and mob's triggering range collide
-            else if (entityA instanceof PlayerCharacter
-                    && entityB instanceof Mob
-                    && Objects.equals(typeB, CollisionBodyTypes.TRIGGERING_RANGE)
-                    || entityA instanceof Mob
-                    && Objects.equals(typeA, CollisionBodyTypes.TRIGGERING_RANGE)
-                    && entityB instanceof PlayerCharacter) {
-                playerInMobsTriggeringRange(entityA, entityB);
-            }
-
             // If player and mob's hit box collide
             else if (entityA instanceof PlayerCharacter
                     && typeA.equals(CollisionBodyTypes.HIT_BOX)
@@ -219,28 +209,6 @@ public class CollisionListener implements ContactListener {
         item.setCollidingWith(player);
     }
 
-    /**
-     * Apply logic that happens when player steps into mob's triggering range.
-     *
-     * @param entityA one collision body
-     * @param entityB second collision body
-     */
-    private void playerInMobsTriggeringRange(Entity entityA, Entity entityB) {
-        PlayerCharacter player;
-        Mob mob;
-        if (entityA instanceof PlayerCharacter playerA) {
-            player = playerA;
-            mob = (Mob) entityB;
-        } else {
-            player = (PlayerCharacter) entityB;
-            mob = (Mob) entityA;
-        }
-
-        if (player != null) {
-            mob.addPlayerInRange(player); // Add player to mob's players in range list
-        }
-    }
-
     /**
      * Apply logic that happens when player and mob collide.
      *
@@ -323,14 +291,6 @@ public class CollisionListener implements ContactListener {
                 endItemAndPlayerCollision(entityA, entityB);
             }
 
-            // If player and mob's triggering range stop colliding
-            else if (entityA instanceof PlayerCharacter
-                    && Objects.equals(typeB, CollisionBodyTypes.TRIGGERING_RANGE)
-                    || Objects.equals(typeA, CollisionBodyTypes.TRIGGERING_RANGE)
-                    && entityB instanceof PlayerCharacter) {
-                playerNotInMobsTriggeringRange(entityA, entityB);
-            }
-
             // If player and mob's hit box stop colliding
             else if (entityA instanceof PlayerCharacter && typeA.equals(CollisionBodyTypes.HIT_BOX)
                     && entityB instanceof Mob && Objects.equals(typeB, CollisionBodyTypes.HIT_BOX)
@@ -359,28 +319,6 @@ public class CollisionListener implements ContactListener {
         item.setCollidingWith(null);
     }
 
-    /**
-     * Apply logic that happens when player steps out of mob's triggering range.
-     *
-     * @param entityA one collision body
-     * @param entityB second collision body
-     */
-    private void playerNotInMobsTriggeringRange(Entity entityA, Entity entityB) {
-        PlayerCharacter player;
-        Mob mob;
-        if (entityA instanceof PlayerCharacter playerA) {
-            player = playerA;
-            mob = (Mob) entityB;
-        } else {
-            player = (PlayerCharacter) entityB;
-            mob = (Mob) entityA;
-        }
-
-        if (player != null) {
-            mob.removePlayerInRange(player); // Remove player from mob's players in range list
-        }
-    }
-
     /**
      * Apply logic that happens when player and mob collide.
      *
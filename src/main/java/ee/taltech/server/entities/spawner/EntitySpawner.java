@@ -114,7 +114,7 @@ public class EntitySpawner {
     private void spawnItem(int[] coord, EntityType type) {
         switch (type) {
             case MOB:
-                Mob mob = new Mob(coord[0], coord[1]);
+                Mob mob = new Mob(game, coord[0], coord[1]);
                 game.addMob(mob);
                 break;
             case ITEM:
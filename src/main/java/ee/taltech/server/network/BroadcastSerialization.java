@@ -0,0 +1,66 @@
+package ee.taltech.server.network;
+
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import ee.taltech.server.components.Constants;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kryo serialization that can write already serialized messages.
+ * Message that is sent to many connections is serialized once with encode() and the same bytes
+ * are copied to every connection, instead of Kryo serializing the message again for each of them.
+ */
+public class BroadcastSerialization extends KryoSerialization {
+    // Every thread that broadcasts has its own buffer, encoded bytes stay valid until its next encode() call
+    private final ThreadLocal<Output> buffers = ThreadLocal.withInitial(() -> new Output(Constants.OBJECT_BUFFER_SIZE));
+
+    /**
+     * Serialize message into the calling thread's pooled buffer.
+     *
+     * @param message message that is serialized
+     * @return serialized message that can be sent to any number of connections
+     */
+    public EncodedMessage encode(Object message) {
+        Output output = buffers.get();
+        output.clear();
+        synchronized (this) { // Kryo is shared with write(), which is synchronized on the serialization
+            getKryo().writeClassAndObject(output, message);
+        }
+        return new EncodedMessage(output.getBuffer(), output.position());
+    }
+
+    /**
+     * Write message to the connection's buffer.
+     * Encoded messages are copied as they are, everything else is serialized with Kryo.
+     *
+     * @param connection connection that the message is written for
+     * @param buffer connection's write buffer
+     * @param object message that is written
+     */
+    @Override
+    public void write(Connection connection, ByteBuffer buffer, Object object) {
+        if (object instanceof EncodedMessage encoded) {
+            buffer.put(encoded.bytes, 0, encoded.length);
+        } else {
+            super.write(connection, buffer, object);
+        }
+    }
+
+    public static class EncodedMessage {
+        private final byte[] bytes;
+        private final int length;
+
+        /**
+         * Construct EncodedMessage.
+         *
+         * @param bytes buffer that contains the serialized message
+         * @param length length of the message in the buffer
+         */
+        private EncodedMessage(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import ee.taltech.server.entities.Spell;
 import ee.taltech.server.network.messages.game.GameLeave;
 import ee.taltech.server.network.messages.game.KeyPress;
 import ee.taltech.server.network.messages.game.MouseClicks;
+import ee.taltech.server.network.messages.game.SnapshotAck;
 import ee.taltech.server.network.messages.lobby.*;
 import ee.taltech.server.entities.PlayerCharacter;
 import ee.taltech.server.components.Game;
@@ -38,6 +39,7 @@ public class ServerListener extends Listener {
     /**
      * If a message is received the method is activated.
      * Every message has its sender connection(ID used mainly) and Data being sent.
+     * Messages are only queued here, they are applied on the tick thread.
      *
      * @param connection   Connection with the client.
      * @param incomingData Incoming data from the client.
@@ -45,68 +47,91 @@ public class ServerListener extends Listener {
     @Override
     public void received(Connection connection, Object incomingData) {
         Class<?> dataClass = incomingData.getClass();
-        if (dataClass == KeyPress.class || dataClass == MouseClicks.class || dataClass == GameLeave.class){
-            gameMessagesListener(connection, incomingData); // If message is associated with game
+        int connectionId = connection.getID();
+        if (dataClass == KeyPress.class || dataClass == MouseClicks.class || dataClass == GameLeave.class
+                || dataClass == SnapshotAck.class) {
+            Game game = getGame(connectionId);
+            if (game != null) { // If message is associated with game
+                game.queueCommand(() -> gameMessagesListener(game, connectionId, incomingData));
+                if (incomingData instanceof GameLeave message) {
+                    server.queueCommand(() -> server.playersToRemoveFromLobbies.put(message.playerID, game.lobby));
+                }
+            }
         } else if (dataClass == LobbyCreation.class || dataClass == Join.class || dataClass == Leave.class
                 || dataClass == GetLobbies.class || dataClass == StartGame.class) {
-            lobbyMessagesListener(connection, incomingData); // If message is associated with lobby
+            // If message is associated with lobby
+            server.queueCommand(() -> lobbyMessagesListener(connectionId, incomingData));
+        }
+    }
+
+    /**
+     * Get the game that the connection is playing in.
+     *
+     * @param connectionId connection's ID
+     * @return game or null if the connection is not in a game
+     */
+    private Game getGame(int connectionId) {
+        Integer gameId = server.connections.get(connectionId);
+        if (gameId == null) {
+            return null;
         }
+        return server.games.get(gameId);
     }
 
     /**
      * Listen and react to game messages.
+     * Run on the thread that ticks the game.
      *
-     * @param connection connection that sent the message
+     * @param game game that the connection is in
+     * @param connectionId connection that sent the message
      * @param incomingData message that was sent
      */
-    private void gameMessagesListener(Connection connection, Object incomingData) {
-        Integer gameId = server.connections.get(connection.getID());
-        Game game = server.games.get(gameId);
-        if (game != null) {
-            PlayerCharacter player = game.gamePlayers.get(connection.getID());
-            switch (incomingData) {
-                case KeyPress key: // On KeyPress message
-                    if (player != null) {
-                        // Set the direction player should be moving.
-                        if (key.action.equals(KeyPress.Action.UP) || key.action.equals(KeyPress.Action.DOWN)
-                                || key.action.equals(KeyPress.Action.LEFT) || key.action.equals(KeyPress.Action.RIGHT)) {
-                            player.setMovement(key);
-                        } else {
-                            game.setPlayerAction(key, player);
-                        }
+    private void gameMessagesListener(Game game, int connectionId, Object incomingData) {
+        PlayerCharacter player = game.gamePlayers.get(connectionId);
+        switch (incomingData) {
+            case KeyPress key: // On KeyPress message
+                if (player != null) {
+                    // Set the direction player should be moving.
+                    if (key.action.equals(KeyPress.Action.UP) || key.action.equals(KeyPress.Action.DOWN)
+                            || key.action.equals(KeyPress.Action.LEFT) || key.action.equals(KeyPress.Action.RIGHT)) {
+                        player.setMovement(key);
+                    } else {
+                        game.setPlayerAction(key, player);
                     }
-                    break;
-                case MouseClicks mouse: // On MouseClicks message
-                    if (player != null) {
-                        // Set the direction player should be moving.
-                        player.setMouseControl(mouse.leftMouse, (int) mouse.mouseXPosition, (int) mouse.mouseYPosition, mouse.type);
-
-                        // *------------- HEALING POTION -------------*
-                        if (mouse.type == ItemTypes.HEALING_POTION && player.getHealth() != 0) {
-                            game.healPlayer(player.playerID, mouse.extraField);
+                }
+                break;
+            case MouseClicks mouse: // On MouseClicks message
+                if (player != null) {
+                    // Set the direction player should be moving.
+                    player.setMouseControl(mouse.leftMouse, (int) mouse.mouseXPosition, (int) mouse.mouseYPosition, mouse.type);
+
+                    // *------------- HEALING POTION -------------*
+                    if (mouse.type == ItemTypes.HEALING_POTION && player.getHealth() != 0) {
+                        game.healPlayer(player.playerID, mouse.extraField);
+                    }
+                    // *------------- SPELL -------------*
+                    else if (mouse.type == ItemTypes.ICE_SHARD && mouse.leftMouse) {
+                        List<Spell> spellList = getIceShards(mouse, player);
+                        System.out.println("ice shard");
+                        for (Spell spell : spellList) {
+                            game.addSpell(spell);
                         }
-                        // *------------- SPELL -------------*
-                        else if (mouse.type == ItemTypes.ICE_SHARD && mouse.leftMouse) {
-                            List<Spell> spellList = getIceShards(mouse, player);
-                            System.out.println("ice shard");
-                            for (Spell spell : spellList) {
-                                game.addSpell(spell);
-                            }
-                        } else if (mouse.type != ItemTypes.NOTHING && mouse.leftMouse) {
-                            Spell spell = getSpell(mouse, player);
-                            if (spell != null) {
-                                game.addSpell(spell);
-                            }
+                    } else if (mouse.type != ItemTypes.NOTHING && mouse.leftMouse) {
+                        Spell spell = getSpell(mouse, player);
+                        if (spell != null) {
+                            game.addSpell(spell);
                         }
                     }
-                    break;
-                case GameLeave message: // On GameLeave message
-                    game.damagePlayer(message.playerID, 100); // Kill the player if they leave
-                    server.playersToRemoveFromLobbies.put(message.playerID, game.lobby);
-                    break;
-                default: // Ignore everything else
-                    break;
-            }
+                }
+                break;
+            case GameLeave message: // On GameLeave message
+                game.damagePlayer(message.playerID, 100); // Kill the player if they leave
+                break;
+            case SnapshotAck ack: // On SnapshotAck message
+                game.acknowledgeSnapshot(connectionId, ack.tick);
+                break;
+            default: // Ignore everything else
+                break;
         }
     }
 
@@ -150,10 +175,12 @@ public class ServerListener extends Listener {
     /**
      * Listen and react to lobby messages.
      *
-     * @param connection connection that sent the message
+     * Run on the tick thread.
+     *
+     * @param connectionId connection that sent the message
      * @param incomingData message that was sent
      */
-    private void lobbyMessagesListener(Connection connection, Object incomingData) {
+    private void lobbyMessagesListener(int connectionId, Object incomingData) {
         Lobby lobby;
         // Triggers every time data is sent from client to server
         switch (incomingData) {
@@ -189,7 +216,7 @@ public class ServerListener extends Listener {
                 for (Lobby existingLobby : server.lobbies.values()) {
                     GetLobbies requestedLobby = new GetLobbies(existingLobby.lobbyName,
                             existingLobby.lobbyId, existingLobby.players);
-                    server.server.sendToTCP(connection.getID(), requestedLobby);
+                    server.server.sendToTCP(connectionId, requestedLobby);
                 }
                 break;
             case StartGame startGame:
@@ -218,20 +245,23 @@ public class ServerListener extends Listener {
     @Override
     public void disconnected(Connection connection) {
         // Triggers when client disconnects from the server.
+        int connectionId = connection.getID();
 
-        Game game = server.games.get(server.connections.get(connection.getID()));
+        Game game = getGame(connectionId);
         if (game != null) { // Kill the player if they close the game
-            game.damagePlayer(connection.getID(), 100); // Kill the player
+            game.queueCommand(() -> game.damagePlayer(connectionId, 100)); // Kill the player
         }
 
-        // Remove player from lobby
-        for (Lobby lobby : server.lobbies.values()) {
-            if (lobby.players.contains(connection.getID())) {
-                server.playersToRemoveFromLobbies.put(connection.getID(), lobby);
+        server.queueCommand(() -> {
+            // Remove player from lobby
+            for (Lobby lobby : server.lobbies.values()) {
+                if (lobby.players.contains(connectionId)) {
+                    server.playersToRemoveFromLobbies.put(connectionId, lobby);
+                }
             }
-        }
 
-        server.connectionsToRemove.add(connection.getID()); // Remove player from connections
+            server.connectionsToRemove.add(connectionId); // Remove player from connections
+        });
         super.disconnected(connection);
     }
 }
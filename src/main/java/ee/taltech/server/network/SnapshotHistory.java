@@ -0,0 +1,256 @@
+package ee.taltech.server.network;
+
+import ee.taltech.server.components.Constants;
+import ee.taltech.server.network.messages.game.WorldSnapshot;
+import ee.taltech.server.network.messages.game.WorldSnapshot.MobState;
+import ee.taltech.server.network.messages.game.WorldSnapshot.PlayerState;
+import ee.taltech.server.network.messages.game.WorldSnapshot.SpellState;
+import ee.taltech.server.network.serializers.Quantization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SnapshotHistory {
+    private final WorldSnapshot[] sentSnapshots;
+    private int lastAckedTick;
+
+    // Entities of the acknowledged snapshot by their ID, rebuilt when the acknowledged snapshot changes
+    private int indexedTick;
+    private final Map<Integer, PlayerState> basePlayers;
+    private final Map<Integer, SpellState> baseSpells;
+    private final Map<Integer, MobState> baseMobs;
+
+    /**
+     * Construct SnapshotHistory.
+     * Each connection has its own history of the snapshots that were sent to it.
+     */
+    public SnapshotHistory() {
+        this.sentSnapshots = new WorldSnapshot[Constants.SNAPSHOT_HISTORY_SIZE];
+        this.lastAckedTick = WorldSnapshot.FULL;
+        this.indexedTick = WorldSnapshot.FULL;
+        this.basePlayers = new HashMap<>();
+        this.baseSpells = new HashMap<>();
+        this.baseMobs = new HashMap<>();
+    }
+
+    /**
+     * Mark snapshot as received by the client.
+     *
+     * @param tick tick of the snapshot that the client received
+     */
+    public void acknowledge(int tick) {
+        lastAckedTick = Math.max(lastAckedTick, tick);
+    }
+
+    /**
+     * Remember the snapshot and encode it against the last snapshot that the client acknowledged.
+     * If the client has not acknowledged any snapshot that is still in the history, full snapshot is returned.
+     *
+     * @param snapshot full snapshot of the current tick
+     * @return snapshot that should be sent to the client
+     */
+    public WorldSnapshot encode(WorldSnapshot snapshot) {
+        WorldSnapshot base = getAckedSnapshot(snapshot.tick);
+        sentSnapshots[snapshot.tick % sentSnapshots.length] = snapshot;
+        if (base == null) {
+            return snapshot;
+        }
+        return createDelta(snapshot, base);
+    }
+
+    /**
+     * Get the last acknowledged snapshot if it is still in the history.
+     *
+     * @param currentTick current tick
+     * @return acknowledged snapshot or null
+     */
+    private WorldSnapshot getAckedSnapshot(int currentTick) {
+        if (lastAckedTick == WorldSnapshot.FULL || currentTick - lastAckedTick >= sentSnapshots.length) {
+            return null;
+        }
+        WorldSnapshot base = sentSnapshots[lastAckedTick % sentSnapshots.length];
+        if (base == null || base.tick != lastAckedTick) {
+            return null;
+        }
+        return base;
+    }
+
+    /**
+     * Create snapshot that only contains the fields that changed since the base snapshot.
+     *
+     * @param snapshot full snapshot of the current tick
+     * @param base full snapshot that the client already has
+     * @return delta snapshot
+     */
+    private WorldSnapshot createDelta(WorldSnapshot snapshot, WorldSnapshot base) {
+        indexBase(base);
+
+        List<PlayerState> players = new ArrayList<>();
+        Set<Integer> currentPlayers = new HashSet<>();
+        for (PlayerState player : snapshot.players) {
+            currentPlayers.add(player.playerId);
+            PlayerState basePlayer = basePlayers.get(player.playerId);
+            byte changed = basePlayer == null ? PlayerState.ALL : getChangedFields(player, basePlayer, base.tick);
+            if (changed != 0) {
+                PlayerState delta = new PlayerState(player.playerId, player.xPosition, player.yPosition,
+                        player.health, player.mana, player.action, player.mouseX, player.mouseY);
+                delta.changed = changed;
+                players.add(delta);
+            }
+        }
+
+        List<SpellState> spells = new ArrayList<>();
+        Set<Integer> currentSpells = new HashSet<>();
+        for (SpellState spell : snapshot.spells) {
+            currentSpells.add(spell.id);
+            SpellState baseSpell = baseSpells.get(spell.id);
+            byte changed = baseSpell == null ? SpellState.ALL : getChangedFields(spell, baseSpell);
+            if (changed != 0) {
+                SpellState delta = new SpellState(spell.senderPlayerID, spell.id,
+                        spell.xPosition, spell.yPosition, spell.type);
+                delta.changed = changed;
+                spells.add(delta);
+            }
+        }
+
+        List<MobState> mobs = new ArrayList<>();
+        Set<Integer> currentMobs = new HashSet<>();
+        for (MobState mob : snapshot.mobs) {
+            currentMobs.add(mob.mobId);
+            MobState baseMob = baseMobs.get(mob.mobId);
+            byte changed = baseMob == null ? MobState.ALL : getChangedFields(mob, baseMob, base.tick);
+            if (changed != 0) {
+                MobState delta = new MobState(mob.mobId, mob.xPosition, mob.yPosition, mob.health);
+                delta.changed = changed;
+                mobs.add(delta);
+            }
+        }
+
+        WorldSnapshot delta = new WorldSnapshot(snapshot.tick, snapshot.zoneTimer, snapshot.zoneStage,
+                players.toArray(new PlayerState[0]), spells.toArray(new SpellState[0]),
+                mobs.toArray(new MobState[0]));
+        delta.baseTick = base.tick;
+        delta.removedPlayers = getRemovedIds(basePlayers.keySet(), currentPlayers);
+        delta.removedSpells = getRemovedIds(baseSpells.keySet(), currentSpells);
+        delta.removedMobs = getRemovedIds(baseMobs.keySet(), currentMobs);
+        return delta;
+    }
+
+    /**
+     * Index base snapshot's entities by their ID.
+     *
+     * @param base acknowledged snapshot
+     */
+    private void indexBase(WorldSnapshot base) {
+        if (indexedTick == base.tick) {
+            return;
+        }
+        basePlayers.clear();
+        baseSpells.clear();
+        baseMobs.clear();
+        for (PlayerState player : base.players) {
+            basePlayers.put(player.playerId, player);
+        }
+        for (SpellState spell : base.spells) {
+            baseSpells.put(spell.id, spell);
+        }
+        for (MobState mob : base.mobs) {
+            baseMobs.put(mob.mobId, mob);
+        }
+        indexedTick = base.tick;
+    }
+
+    /**
+     * Get IDs that are in the base snapshot, but not in the current one.
+     *
+     * @param baseIds IDs in the acknowledged snapshot
+     * @param currentIds IDs in the current snapshot
+     * @return removed IDs
+     */
+    private static int[] getRemovedIds(Set<Integer> baseIds, Set<Integer> currentIds) {
+        return baseIds.stream()
+                .filter(id -> !currentIds.contains(id))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Has the position changed enough to be visible after quantization.
+     *
+     * @param x current x coordinate
+     * @param y current y coordinate
+     * @param baseX acknowledged x coordinate
+     * @param baseY acknowledged y coordinate
+     * @return true if the sent position would be different
+     */
+    private static boolean positionChanged(float x, float y, float baseX, float baseY) {
+        return Quantization.quantizePosition(x) != Quantization.quantizePosition(baseX)
+                || Quantization.quantizePosition(y) != Quantization.quantizePosition(baseY);
+    }
+
+    /**
+     * Get fields of the player that differ from the base.
+     *
+     * Health and mana are sent if the player's change flags were set after the acknowledged snapshot.
+     *
+     * @param player current state
+     * @param base acknowledged state
+     * @param baseTick tick of the acknowledged snapshot
+     * @return changed fields
+     */
+    private static byte getChangedFields(PlayerState player, PlayerState base, int baseTick) {
+        byte changed = 0;
+        if (positionChanged(player.xPosition, player.yPosition, base.xPosition, base.yPosition)) {
+            changed |= PlayerState.POSITION;
+        }
+        if (player.healthChangeTick > baseTick) {
+            changed |= PlayerState.HEALTH;
+        }
+        if (player.manaChangeTick > baseTick) {
+            changed |= PlayerState.MANA;
+        }
+        if (player.action != base.action || player.mouseX != base.mouseX || player.mouseY != base.mouseY) {
+            changed |= PlayerState.ACTION;
+        }
+        return changed;
+    }
+
+    /**
+     * Get fields of the spell that differ from the base.
+     *
+     * @param spell current state
+     * @param base acknowledged state
+     * @return changed fields
+     */
+    private static byte getChangedFields(SpellState spell, SpellState base) {
+        if (positionChanged(spell.xPosition, spell.yPosition, base.xPosition, base.yPosition)) {
+            return SpellState.POSITION;
+        }
+        return 0;
+    }
+
+    /**
+     * Get fields of the mob that differ from the base.
+     *
+     * Health is sent if the mob's change flag was set after the acknowledged snapshot.
+     *
+     * @param mob current state
+     * @param base acknowledged state
+     * @param baseTick tick of the acknowledged snapshot
+     * @return changed fields
+     */
+    private static byte getChangedFields(MobState mob, MobState base, int baseTick) {
+        byte changed = 0;
+        if (positionChanged(mob.xPosition, mob.yPosition, base.xPosition, base.yPosition)) {
+            changed |= MobState.POSITION;
+        }
+        if (mob.healthChangeTick > baseTick) {
+            changed |= MobState.HEALTH;
+        }
+        return changed;
+    }
+}
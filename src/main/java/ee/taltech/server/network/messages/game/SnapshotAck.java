@@ -0,0 +1,12 @@
+package ee.taltech.server.network.messages.game;
+
+public class SnapshotAck {
+    public int tick;
+
+    /**
+     * Empty constructor for Kryonet.
+     */
+    public SnapshotAck() {
+        // Empty constructor for client to fill.
+    }
+}
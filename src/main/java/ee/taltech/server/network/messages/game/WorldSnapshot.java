@@ -0,0 +1,184 @@
+package ee.taltech.server.network.messages.game;
+
+import ee.taltech.server.components.ItemTypes;
+
+public class WorldSnapshot {
+    public static final int FULL = -1; // Base tick of a snapshot that is not a delta
+
+    public int tick;
+    public int baseTick;
+    public int zoneTimer;
+    public int zoneStage;
+    public PlayerState[] players;
+    public SpellState[] spells;
+    public MobState[] mobs;
+    public int[] removedPlayers;
+    public int[] removedSpells;
+    public int[] removedMobs;
+
+    /**
+     * Empty constructor for Kryonet.
+     */
+    public WorldSnapshot() {
+    }
+
+    /**
+     * Construct WorldSnapshot message.
+     * Contains the state of every entity near the player for one tick.
+     * In a delta snapshot entities that entered the player's view have all their fields set
+     * and entities that left the view or were removed are listed in the removed arrays.
+     *
+     * @param tick game's tick that the snapshot was taken on
+     * @param zoneTimer play zone's timer
+     * @param zoneStage play zone's stage
+     * @param players states of the players
+     * @param spells states of the spells
+     * @param mobs states of the mobs
+     */
+    public WorldSnapshot(int tick, int zoneTimer, int zoneStage,
+                         PlayerState[] players, SpellState[] spells, MobState[] mobs) {
+        this.tick = tick;
+        this.baseTick = FULL;
+        this.zoneTimer = zoneTimer;
+        this.zoneStage = zoneStage;
+        this.players = players;
+        this.spells = spells;
+        this.mobs = mobs;
+        this.removedPlayers = new int[0];
+        this.removedSpells = new int[0];
+        this.removedMobs = new int[0];
+    }
+
+    /**
+     * Is this a full snapshot or only the changes since the base tick.
+     *
+     * @return true if snapshot contains every field of every entity
+     */
+    public boolean isFull() {
+        return baseTick == FULL;
+    }
+
+    public static class PlayerState {
+        public static final byte POSITION = 1;
+        public static final byte HEALTH = 2;
+        public static final byte MANA = 4;
+        public static final byte ACTION = 8;
+        public static final byte ALL = POSITION | HEALTH | MANA | ACTION;
+
+        public byte changed; // Fields that are sent
+        public int playerId;
+        public float xPosition;
+        public float yPosition;
+        public int health;
+        public float mana;
+        public boolean action;
+        public int mouseX;
+        public int mouseY;
+        // Server only, not sent: ticks of the last snapshots where health and mana changed
+        public int healthChangeTick;
+        public int manaChangeTick;
+
+        /**
+         * Empty constructor for Kryonet.
+         */
+        public PlayerState() {
+        }
+
+        /**
+         * Construct PlayerState.
+         *
+         * @param playerId player's ID
+         * @param xPosition player's x coordinate
+         * @param yPosition player's y coordinate
+         * @param health player's health
+         * @param mana player's mana
+         * @param action is player's left mouse clicked
+         * @param mouseX player's mouse x coordinate
+         * @param mouseY player's mouse y coordinate
+         */
+        public PlayerState(int playerId, float xPosition, float yPosition, int health, float mana,
+                           boolean action, int mouseX, int mouseY) {
+            this.playerId = playerId;
+            this.xPosition = xPosition;
+            this.yPosition = yPosition;
+            this.health = health;
+            this.mana = mana;
+            this.action = action;
+            this.mouseX = mouseX;
+            this.mouseY = mouseY;
+            this.changed = ALL;
+        }
+    }
+
+    public static class SpellState {
+        public static final byte POSITION = 1;
+        public static final byte INFO = 2; // Caster and type, they never change
+        public static final byte ALL = POSITION | INFO;
+
+        public byte changed; // Fields that are sent
+        public int senderPlayerID;
+        public int id;
+        public float xPosition;
+        public float yPosition;
+        public ItemTypes type;
+
+        /**
+         * Empty constructor for Kryonet.
+         */
+        public SpellState() {
+        }
+
+        /**
+         * Construct SpellState.
+         *
+         * @param senderPlayerID spell caster's ID
+         * @param id spell's ID
+         * @param xPosition spell's x coordinate
+         * @param yPosition spell's y coordinate
+         * @param type spell's type
+         */
+        public SpellState(int senderPlayerID, int id, float xPosition, float yPosition, ItemTypes type) {
+            this.senderPlayerID = senderPlayerID;
+            this.id = id;
+            this.xPosition = xPosition;
+            this.yPosition = yPosition;
+            this.type = type;
+            this.changed = ALL;
+        }
+    }
+
+    public static class MobState {
+        public static final byte POSITION = 1;
+        public static final byte HEALTH = 2;
+        public static final byte ALL = POSITION | HEALTH;
+
+        public byte changed; // Fields that are sent
+        public int mobId;
+        public float xPosition;
+        public float yPosition;
+        public int health;
+        public int healthChangeTick; // Server only, not sent: tick of the last snapshot where health changed
+
+        /**
+         * Empty constructor for Kryonet.
+         */
+        public MobState() {
+        }
+
+        /**
+         * Construct MobState.
+         *
+         * @param mobId mob's ID
+         * @param xPosition mob's x coordinate
+         * @param yPosition mob's y coordinate
+         * @param health mob's health
+         */
+        public MobState(int mobId, float xPosition, float yPosition, int health) {
+            this.mobId = mobId;
+            this.xPosition = xPosition;
+            this.yPosition = yPosition;
+            this.health = health;
+            this.changed = ALL;
+        }
+    }
+}
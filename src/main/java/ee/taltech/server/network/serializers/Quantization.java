@@ -0,0 +1,83 @@
+package ee.taltech.server.network.serializers;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import ee.taltech.server.components.Constants;
+
+/**
+ * Fixed-point encoding of the values that are sent every tick.
+ * Positions are sent as 16-bit values over the world's bounds and stats as single bytes.
+ * This should be identical to the client side, else it won't work.
+ */
+public final class Quantization {
+    private static final int POSITION_STEPS = 0xFFFF;
+    private static final int STAT_STEPS = 0xFF;
+
+    /**
+     * Utility class, not meant to be constructed.
+     */
+    private Quantization() {
+    }
+
+    /**
+     * Get position as a fixed-point value.
+     * Positions outside the world are moved to its closest edge.
+     *
+     * @param position x or y coordinate
+     * @return value between 0 and 65535
+     */
+    public static int quantizePosition(float position) {
+        float clamped = Math.clamp(position, 0f, Constants.WORLD_SIZE);
+        return Math.round(clamped / Constants.WORLD_SIZE * POSITION_STEPS);
+    }
+
+    /**
+     * Get stat as a fixed-point value.
+     *
+     * @param stat health or mana
+     * @return value between 0 and 255
+     */
+    public static int quantizeStat(float stat) {
+        return Math.clamp(Math.round(stat), 0, STAT_STEPS);
+    }
+
+    /**
+     * Write position as two bytes.
+     *
+     * @param output output where the position is written
+     * @param position x or y coordinate
+     */
+    public static void writePosition(Output output, float position) {
+        output.writeShort(quantizePosition(position));
+    }
+
+    /**
+     * Read position that was written with writePosition().
+     *
+     * @param input input where the position is read from
+     * @return x or y coordinate
+     */
+    public static float readPosition(Input input) {
+        return input.readShortUnsigned() * Constants.WORLD_SIZE / POSITION_STEPS;
+    }
+
+    /**
+     * Write stat as one byte.
+     *
+     * @param output output where the stat is written
+     * @param stat health or mana
+     */
+    public static void writeStat(Output output, float stat) {
+        output.writeByte(quantizeStat(stat));
+    }
+
+    /**
+     * Read stat that was written with writeStat().
+     *
+     * @param input input where the stat is read from
+     * @return health or mana
+     */
+    public static int readStat(Input input) {
+        return input.readByteUnsigned();
+    }
+}
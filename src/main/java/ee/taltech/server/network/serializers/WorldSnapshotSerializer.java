@@ -0,0 +1,190 @@
+package ee.taltech.server.network.serializers;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import ee.taltech.server.components.ItemTypes;
+import ee.taltech.server.network.messages.game.WorldSnapshot;
+import ee.taltech.server.network.messages.game.WorldSnapshot.MobState;
+import ee.taltech.server.network.messages.game.WorldSnapshot.PlayerState;
+import ee.taltech.server.network.messages.game.WorldSnapshot.SpellState;
+
+/**
+ * Writes only the fields that are marked as changed in each entity's state.
+ * Positions are sent as 16-bit fixed-point values and stats as single bytes.
+ * This should be identical to the client side, else it won't work.
+ */
+public class WorldSnapshotSerializer extends Serializer<WorldSnapshot> {
+
+    /**
+     * Write snapshot to the output.
+     *
+     * @param kryo kryo instance
+     * @param output output where the snapshot is written
+     * @param snapshot snapshot that is written
+     */
+    @Override
+    public void write(Kryo kryo, Output output, WorldSnapshot snapshot) {
+        output.writeInt(snapshot.tick, true);
+        output.writeInt(snapshot.baseTick + 1, true); // FULL is -1, so shift it to keep the number positive
+        output.writeInt(snapshot.zoneTimer, true);
+        output.writeByte(snapshot.zoneStage);
+
+        output.writeInt(snapshot.players.length, true);
+        for (PlayerState player : snapshot.players) {
+            output.writeInt(player.playerId, true);
+            output.writeByte(player.changed);
+            if ((player.changed & PlayerState.POSITION) != 0) {
+                Quantization.writePosition(output, player.xPosition);
+                Quantization.writePosition(output, player.yPosition);
+            }
+            if ((player.changed & PlayerState.HEALTH) != 0) {
+                Quantization.writeStat(output, player.health);
+            }
+            if ((player.changed & PlayerState.MANA) != 0) {
+                Quantization.writeStat(output, player.mana);
+            }
+            if ((player.changed & PlayerState.ACTION) != 0) {
+                output.writeBoolean(player.action);
+                output.writeInt(player.mouseX, false);
+                output.writeInt(player.mouseY, false);
+            }
+        }
+
+        output.writeInt(snapshot.spells.length, true);
+        for (SpellState spell : snapshot.spells) {
+            output.writeInt(spell.id, true);
+            output.writeByte(spell.changed);
+            if ((spell.changed & SpellState.INFO) != 0) {
+                output.writeInt(spell.senderPlayerID, true);
+                output.writeInt(spell.type.ordinal(), true);
+            }
+            if ((spell.changed & SpellState.POSITION) != 0) {
+                Quantization.writePosition(output, spell.xPosition);
+                Quantization.writePosition(output, spell.yPosition);
+            }
+        }
+
+        output.writeInt(snapshot.mobs.length, true);
+        for (MobState mob : snapshot.mobs) {
+            output.writeInt(mob.mobId, true);
+            output.writeByte(mob.changed);
+            if ((mob.changed & MobState.POSITION) != 0) {
+                Quantization.writePosition(output, mob.xPosition);
+                Quantization.writePosition(output, mob.yPosition);
+            }
+            if ((mob.changed & MobState.HEALTH) != 0) {
+                Quantization.writeStat(output, mob.health);
+            }
+        }
+
+        writeIds(output, snapshot.removedPlayers);
+        writeIds(output, snapshot.removedSpells);
+        writeIds(output, snapshot.removedMobs);
+    }
+
+    /**
+     * Read snapshot from the input.
+     * Fields that were not sent are left to their default values.
+     *
+     * @param kryo kryo instance
+     * @param input input where the snapshot is read from
+     * @param type WorldSnapshot class
+     * @return read snapshot
+     */
+    @Override
+    public WorldSnapshot read(Kryo kryo, Input input, Class<WorldSnapshot> type) {
+        WorldSnapshot snapshot = new WorldSnapshot();
+        snapshot.tick = input.readInt(true);
+        snapshot.baseTick = input.readInt(true) - 1;
+        snapshot.zoneTimer = input.readInt(true);
+        snapshot.zoneStage = input.readByte();
+
+        snapshot.players = new PlayerState[input.readInt(true)];
+        for (int i = 0; i < snapshot.players.length; i++) {
+            PlayerState player = new PlayerState();
+            player.playerId = input.readInt(true);
+            player.changed = input.readByte();
+            if ((player.changed & PlayerState.POSITION) != 0) {
+                player.xPosition = Quantization.readPosition(input);
+                player.yPosition = Quantization.readPosition(input);
+            }
+            if ((player.changed & PlayerState.HEALTH) != 0) {
+                player.health = Quantization.readStat(input);
+            }
+            if ((player.changed & PlayerState.MANA) != 0) {
+                player.mana = Quantization.readStat(input);
+            }
+            if ((player.changed & PlayerState.ACTION) != 0) {
+                player.action = input.readBoolean();
+                player.mouseX = input.readInt(false);
+                player.mouseY = input.readInt(false);
+            }
+            snapshot.players[i] = player;
+        }
+
+        snapshot.spells = new SpellState[input.readInt(true)];
+        for (int i = 0; i < snapshot.spells.length; i++) {
+            SpellState spell = new SpellState();
+            spell.id = input.readInt(true);
+            spell.changed = input.readByte();
+            if ((spell.changed & SpellState.INFO) != 0) {
+                spell.senderPlayerID = input.readInt(true);
+                spell.type = ItemTypes.values()[input.readInt(true)];
+            }
+            if ((spell.changed & SpellState.POSITION) != 0) {
+                spell.xPosition = Quantization.readPosition(input);
+                spell.yPosition = Quantization.readPosition(input);
+            }
+            snapshot.spells[i] = spell;
+        }
+
+        snapshot.mobs = new MobState[input.readInt(true)];
+        for (int i = 0; i < snapshot.mobs.length; i++) {
+            MobState mob = new MobState();
+            mob.mobId = input.readInt(true);
+            mob.changed = input.readByte();
+            if ((mob.changed & MobState.POSITION) != 0) {
+                mob.xPosition = Quantization.readPosition(input);
+                mob.yPosition = Quantization.readPosition(input);
+            }
+            if ((mob.changed & MobState.HEALTH) != 0) {
+                mob.health = Quantization.readStat(input);
+            }
+            snapshot.mobs[i] = mob;
+        }
+
+        snapshot.removedPlayers = readIds(input);
+        snapshot.removedSpells = readIds(input);
+        snapshot.removedMobs = readIds(input);
+        return snapshot;
+    }
+
+    /**
+     * Write array of IDs with its length.
+     *
+     * @param output output where IDs are written
+     * @param ids IDs that are written
+     */
+    private static void writeIds(Output output, int[] ids) {
+        output.writeInt(ids.length, true);
+        for (int id : ids) {
+            output.writeInt(id, true);
+        }
+    }
+
+    /**
+     * Read array of IDs with its length.
+     *
+     * @param input input where IDs are read from
+     * @return read IDs
+     */
+    private static int[] readIds(Input input) {
+        int[] ids = new int[input.readInt(true)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = input.readInt(true);
+        }
+        return ids;
+    }
+}
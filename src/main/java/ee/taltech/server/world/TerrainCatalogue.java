@@ -0,0 +1,161 @@
+package ee.taltech.server.world;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryonet.KryoSerialization;
+import com.esotericsoftware.minlog.Log;
+import ee.taltech.server.components.Constants;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Static collision shapes of the map.
+ * 'mapdata.bin' is read once when the server starts and the shapes are shared by every game.
+ */
+public class TerrainCatalogue {
+    // Change if using different tile sets (measurement: px)
+    private static final int TILE_WIDTH = 32;
+    private static final int TILE_HEIGHT = 32;
+
+    private final List<TerrainShape> shapes;
+
+    /**
+     * Construct TerrainCatalogue.
+     *
+     * @param shapes terrain shapes
+     */
+    private TerrainCatalogue(List<TerrainShape> shapes) {
+        this.shapes = Collections.unmodifiableList(shapes);
+    }
+
+    /**
+     * Read and scale every collision object from 'mapdata.bin'.
+     *
+     * @return TerrainCatalogue, empty if the file could not be read
+     */
+    public static TerrainCatalogue load() {
+        List<TerrainShape> shapes = new ArrayList<>();
+        for (MapObjectData obj : readMapObjects()) {
+            shapes.add(createShape(obj));
+        }
+        Log.info("Terrain loaded: " + shapes.size() + " shapes");
+        return new TerrainCatalogue(shapes);
+    }
+
+    /**
+     * Get every terrain shape.
+     *
+     * @return unmodifiable list of shapes
+     */
+    public List<TerrainShape> getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Deserialize map objects with kryo.
+     * Uses its own Kryo instance, because the server's one is used for sending messages.
+     *
+     * @return collision objects read from 'mapdata.bin', which is manually created
+     */
+    private static List<MapObjectData> readMapObjects() {
+        // Register classes in the same order as GameServer.registerKryos(), the file was written with those IDs
+        Kryo kryo = new KryoSerialization().getKryo();
+        kryo.register(java.util.ArrayList.class);
+        kryo.register(MapObjectData.class);
+        kryo.register(float[].class);
+
+        try (InputStream inputStream = TerrainCatalogue.class.getResourceAsStream("/mapdata.bin")) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("mapdata.bin not found in resources");
+            }
+            Input input = new Input(inputStream);
+            return kryo.readObject(input, ArrayList.class);
+        } catch (Exception e) {
+            Log.error("Could not read terrain", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Create shape accordingly from map object.
+     *
+     * @param obj collision object
+     * @return shape in world units
+     */
+    private static TerrainShape createShape(MapObjectData obj) {
+        boolean flipped = obj.textureRegionWidth != 0; // TextureRegionWidth is not 0, when the cell is flipped.
+        switch (obj.type) {
+            case "ellipse":
+                return new TerrainShape(TerrainShape.Type.CIRCLE,
+                        getBodyX(obj.x, flipped ? -obj.width : obj.width, obj.tileX, obj.textureRegionWidth),
+                        getBodyY(obj.y, obj.width, obj.tileY),
+                        obj.width / 2f / Constants.PPM, obj.width / 2f / Constants.PPM, null);
+            case "rectangle":
+                return new TerrainShape(TerrainShape.Type.RECTANGLE,
+                        getBodyX(obj.x, flipped ? -obj.width : obj.width, obj.tileX, obj.textureRegionWidth),
+                        getBodyY(obj.y, obj.height, obj.tileY),
+                        obj.width / 2f / Constants.PPM, obj.height / 2f / Constants.PPM, null);
+            case "polygon":
+                return createPolygon(obj, flipped);
+            default:
+                throw new IllegalStateException("Unexpected object: " + obj);
+        }
+    }
+
+    /**
+     * Create polygon or chain shape.
+     *
+     * @param obj     collision object with vertices
+     * @param flipped is the cell flipped
+     * @return shape in world units
+     */
+    private static TerrainShape createPolygon(MapObjectData obj, boolean flipped) {
+        if (obj.vertices.length > 300) {
+            Log.warn("Vertex count really high: " + obj.vertices.length);
+        }
+
+        // Scale vertices using PPM
+        float[] scaledVertices = new float[obj.vertices.length];
+        for (int i = 0; i < obj.vertices.length; i++) {
+            // Inverting x-values (every second vertex), because cell is flipped.
+            float vertex = flipped && i % 2 == 0 ? -obj.vertices[i] : obj.vertices[i];
+            scaledVertices[i] = vertex / Constants.PPM;
+        }
+
+        // PolygonShape can have a maximum of 8 vertices.
+        TerrainShape.Type type = obj.vertices.length <= 8 ? TerrainShape.Type.POLYGON : TerrainShape.Type.CHAIN;
+        return new TerrainShape(type, getBodyX(0, 0, obj.tileX, obj.textureRegionWidth), getBodyY(0, 0, obj.tileY),
+                0, 0, scaledVertices);
+    }
+
+    /**
+     * Get body's x coordinate according to the location of the collision shape.
+     *
+     * @param x                  Position x of the collision inside the tile
+     * @param width              Width of the collision object
+     * @param tileX              Number x Tile in the map's x-Axis
+     * @param textureRegionWidth Size of the sprite image (If it is 0, that means the cell is flipped).
+     * @return body's x coordinate
+     */
+    private static float getBodyX(float x, float width, int tileX, float textureRegionWidth) {
+        return (tileX * TILE_WIDTH) / Constants.PPM +
+                (textureRegionWidth != 0 ? -x / Constants.PPM : x / Constants.PPM)
+                + (width / 2f / Constants.PPM) + textureRegionWidth / Constants.PPM;
+    }
+
+    /**
+     * Get body's y coordinate according to the location of the collision shape.
+     *
+     * @param y      Position y of the collision inside the tile
+     * @param height Height of the collision
+     * @param tileY  Number y Tile in the map's y-Axis
+     * @return body's y coordinate
+     */
+    private static float getBodyY(float y, float height, int tileY) {
+        return (tileY * TILE_HEIGHT) / Constants.PPM + y / Constants.PPM + (height / 2f / Constants.PPM);
+    }
+}
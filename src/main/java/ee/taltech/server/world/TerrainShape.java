@@ -0,0 +1,85 @@
+package ee.taltech.server.world;
+
+/**
+ * One static collision shape of the map, already scaled to world units.
+ * Shapes are shared by every game, so they must not be modified.
+ */
+public class TerrainShape {
+
+    public enum Type {
+        CIRCLE,
+        RECTANGLE,
+        POLYGON, // At most 8 vertices
+        CHAIN // Complex shapes with more than 8 vertices
+    }
+
+    private final Type type;
+    private final float bodyX;
+    private final float bodyY;
+    private final float halfWidth;
+    private final float halfHeight;
+    private final float[] vertices;
+
+    /**
+     * Construct TerrainShape.
+     *
+     * @param type       shape's type
+     * @param bodyX      body's x coordinate
+     * @param bodyY      body's y coordinate
+     * @param halfWidth  half of the width, radius for circles
+     * @param halfHeight half of the height
+     * @param vertices   corner coordinates relative to the body for polygons and chains, else null
+     */
+    TerrainShape(Type type, float bodyX, float bodyY, float halfWidth, float halfHeight, float[] vertices) {
+        this.type = type;
+        this.bodyX = bodyX;
+        this.bodyY = bodyY;
+        this.halfWidth = halfWidth;
+        this.halfHeight = halfHeight;
+        this.vertices = vertices;
+    }
+
+    /**
+     * @return shape's type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return body's x coordinate
+     */
+    public float getBodyX() {
+        return bodyX;
+    }
+
+    /**
+     * @return body's y coordinate
+     */
+    public float getBodyY() {
+        return bodyY;
+    }
+
+    /**
+     * @return half of the width, radius for circles
+     */
+    public float getHalfWidth() {
+        return halfWidth;
+    }
+
+    /**
+     * @return half of the height
+     */
+    public float getHalfHeight() {
+        return halfHeight;
+    }
+
+    /**
+     * Box2D copies the vertices when a shape is created, so the array is not copied here.
+     *
+     * @return corner coordinates relative to the body
+     */
+    float[] getVertices() {
+        return vertices;
+    }
+}
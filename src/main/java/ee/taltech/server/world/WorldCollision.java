@@ -1,62 +1,51 @@
 package ee.taltech.server.world;
 
 import com.badlogic.gdx.physics.box2d.*;
-import com.esotericsoftware.kryo.Kryo;
-import com.esotericsoftware.kryo.io.Input;
-import ee.taltech.server.components.Constants;
-import ee.taltech.server.entities.Entity;
 import ee.taltech.server.entities.Terrain;
 import ee.taltech.server.entities.collision.CollisionBodyTypes;
+import ee.taltech.server.entities.collision.CollisionLayer;
 
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 public class WorldCollision {
 
-    private final Kryo kryo;
     private boolean collisionsCreated;
-    private World world;
-    private final int tileHeight;
-    private final int tileWidth;
-    private ArrayList<MapObjectData> mapObjects;
+    private final World world;
 
     /**
-     * @param world Box2D world created in GameScreen
+     * @param world   Box2D world created in GameScreen
+     * @param terrain Terrain shapes shared by every game
      */
-    public WorldCollision(World world, Kryo kryo) {
+    public WorldCollision(World world, TerrainCatalogue terrain) {
         this.world = world;
-        this.kryo = kryo;
-        // Change if using different tile sets (measurement: px)
-        this.tileHeight = 32;
-        this.tileWidth = 32;
-
-        this.mapObjects = loadWorldData(); // Deserialize the objects with kryo.
-        lookForObjectTypeAndCreate(mapObjects);
         // Collision creates a flag for loading purposes.
         this.collisionsCreated = false;
+        createBodies(terrain.getShapes());
     }
 
     /**
-     * Create shapes accordingly from map objects.
+     * Create bodies for the terrain shapes.
      *
-     * @param mapObjects         Collision objects read from 'mapdata.bin', which is manually created.
+     * @param shapes Shapes read from 'mapdata.bin' when the server started.
      */
-    public void lookForObjectTypeAndCreate(ArrayList<MapObjectData> mapObjects) {
-        for (MapObjectData obj : mapObjects) {
-            switch (obj.type) {
-                case "ellipse":
-                    createCircle(obj.x, obj.y, obj.width, obj.tileX, obj.tileY, obj.textureRegionWidth);
+    private void createBodies(List<TerrainShape> shapes) {
+        for (TerrainShape shape : shapes) {
+            Body body = world.createBody(getBodyDef(shape));
+            switch (shape.getType()) {
+                case CIRCLE:
+                    createCircle(body, shape);
+                    break;
+                case RECTANGLE:
+                    createRectangle(body, shape);
                     break;
-                case "rectangle":
-                    createRectangle(obj.x, obj.y, obj.width, obj.height, obj.tileX, obj.tileY, obj.textureRegionWidth);
+                case POLYGON:
+                    createPolygon(body, shape);
                     break;
-                case "polygon":
-                    createPolygon(obj.vertices, obj.tileX, obj.tileY, obj.textureRegionWidth);
+                case CHAIN:
+                    createChain(body, shape);
                     break;
                 default:
-                    throw new IllegalStateException("Unexpected object: " + obj);
+                    throw new IllegalStateException("Unexpected shape: " + shape.getType());
             }
         }
         collisionsCreated = true;
@@ -66,45 +55,28 @@ public class WorldCollision {
     /**
      * Creates an Ellipse (Circle) shaped Box2D fixture.
      *
-     * @param x                  X coordinate
-     * @param y                  Y coordinate
-     * @param radius             of Ellipse
-     * @param tileX              Number x Tile in the map's x-Axis
-     * @param tileY              Number y Tile in the map's y-Axis
-     * @param textureRegionWidth Size of the sprite image (If it is 0, that means the cell is flipped).
+     * @param body  Body that the fixture is added to
+     * @param shape Circle's terrain shape
      */
-    private void createCircle(float x, float y, float radius, int tileX, int tileY, float textureRegionWidth) {
-        BodyDef bodyDef = getBodyDef(x, y, radius,
-                (textureRegionWidth != 0 ? -radius : radius),
-                tileX, tileY, textureRegionWidth);
-        Body body = world.createBody(bodyDef);
+    private void createCircle(Body body, TerrainShape shape) {
         CircleShape circleShape = new CircleShape();
-        circleShape.setRadius(radius / 2f / Constants.PPM);
+        circleShape.setRadius(shape.getHalfWidth());
 
-        body.createFixture(circleShape, 0.0f)
+        body.createFixture(createFixtureDef(circleShape))
                 .setUserData(List.of(new Terrain(), CollisionBodyTypes.WORLD_CIRCLE));
         circleShape.dispose(); // Dispose of the shape after use
     }
 
     /**
-     * Creates a Rectangle shaped Box2D object.
+     * Creates a Rectangle shaped Box2D fixture.
      *
-     * @param x                  X coordinate
-     * @param y                  Y coordinate
-     * @param width              of rectangle
-     * @param height             of rectangle
-     * @param tileX              Number x Tile in the map's x-Axis
-     * @param tileY              Number y Tile in the map's y-Axis
-     * @param textureRegionWidth Size of the sprite image (If it is 0, that means the cell is flipped).
+     * @param body  Body that the fixture is added to
+     * @param shape Rectangle's terrain shape
      */
-    private void createRectangle(float x, float y, float width, float height, int tileX, int tileY, float textureRegionWidth) {
-        BodyDef bodyDef = getBodyDef(x, y,
-                height, (textureRegionWidth != 0 ? -width : width),
-                tileX, tileY, textureRegionWidth);
-        Body body = world.createBody(bodyDef);
+    private void createRectangle(Body body, TerrainShape shape) {
         PolygonShape rectangleShape = new PolygonShape();
-        rectangleShape.setAsBox(width / 2f / Constants.PPM, height / 2f / Constants.PPM);
-        body.createFixture(rectangleShape, 0.0f)
+        rectangleShape.setAsBox(shape.getHalfWidth(), shape.getHalfHeight());
+        body.createFixture(createFixtureDef(rectangleShape))
                 .setUserData(List.of(new Terrain(), CollisionBodyTypes.WORLD_RECTANGLE));
         rectangleShape.dispose(); // Dispose of the shape after use
     }
@@ -112,78 +84,55 @@ public class WorldCollision {
     /**
      * Creates a Polygon shaped Box2D fixture.
      *
-     * @param vertices           Corner coordinates of the polygon shape
-     * @param tileX              Number x Tile in the map's x-Axis
-     * @param tileY              Number y Tile in the map's y-Axis
-     * @param textureRegionWidth Size of the sprite image (If it is 0, that means the cell is flipped).
+     * @param body  Body that the fixture is added to
+     * @param shape Polygon's terrain shape, at most 8 vertices
      */
-    private void createPolygon(float[] vertices, int tileX, int tileY, float textureRegionWidth) {
-        if (vertices.length > 300) {
-            System.out.println("Warning: Vertex count really high: " + vertices.length);
-        }
-
-        // TextureRegionWidth is not 0, when the cell is flipped.
-        if (textureRegionWidth != 0) {
-            // Loop through every second vertex, that contain x values.
-            for (int i = 0; i < vertices.length; i += 2) {
-                // Inverting x-values, because cell is flipped.
-                vertices[i] = -vertices[i];
-            }
-        }
-
-        // Scale vertices using PPM
-        float[] scaledVertices = new float[vertices.length];
-
-        for (int i = 0; i < vertices.length; i++) {
-            scaledVertices[i] = vertices[i] / Constants.PPM;
-        }
+    private void createPolygon(Body body, TerrainShape shape) {
+        PolygonShape polygonShape = new PolygonShape();
+        polygonShape.set(shape.getVertices());
+        body.createFixture(createFixtureDef(polygonShape))
+                .setUserData(List.of(new Terrain(), CollisionBodyTypes.WORLD_POLYGON));
+        polygonShape.dispose(); // Dispose of the shape after use
+    }
 
-        // Define the body's location
-        BodyDef bodyDef = getBodyDef(0, 0, 0, 0, tileX, tileY, textureRegionWidth);
-        Body body = world.createBody(bodyDef);
+    /**
+     * Creates a Chain shaped Box2D fixture for complex shapes.
+     *
+     * @param body  Body that the fixture is added to
+     * @param shape Chain's terrain shape
+     */
+    private void createChain(Body body, TerrainShape shape) {
+        ChainShape chainShape = new ChainShape();
+        chainShape.createLoop(shape.getVertices());
+        body.createFixture(createFixtureDef(chainShape))
+                .setUserData(List.of(new Terrain(), CollisionBodyTypes.WORLD_CHAIN));
+        chainShape.dispose(); // Dispose of the shape after use
+    }
 
-        // Handle multiple scenarios based on vertex count
-        if (vertices.length <= 8) {
-            // PolygonShape can have a maximum of 8 vertices.
-            PolygonShape polygonShape = new PolygonShape();
-            polygonShape.set(scaledVertices);
-            body.createFixture(polygonShape, 0.0f)
-                    .setUserData(List.of(new Terrain(), CollisionBodyTypes.WORLD_POLYGON));
-            polygonShape.dispose(); // Dispose of the shape after use
-        } else {
-            // Use ChainShape for complex shapes (more than 8 vertices)
-            ChainShape chainShape = new ChainShape();
-            chainShape.createLoop(scaledVertices);
-            body.createFixture(chainShape, 0.0f)
-                    .setUserData(List.of(new Terrain(), CollisionBodyTypes.WORLD_CHAIN));
-            chainShape.dispose(); // Dispose of the shape after use
-        }
+    /**
+     * Creates FixtureDef for a terrain shape on the terrain collision layer.
+     *
+     * @param shape Box2D shape of the fixture
+     * @return FixtureDef with density 0
+     */
+    private FixtureDef createFixtureDef(Shape shape) {
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.density = 0.0f;
+        CollisionLayer.TERRAIN.apply(fixtureDef);
+        return fixtureDef;
     }
 
     /**
      * Creates BodyDef according to the location of the collision shape.
      *
-     * @param x                  Position x of the collision inside the tile
-     * @param y                  Position y of the collision inside the tile
-     * @param height             Height of the collision
-     * @param width              Width of the collision object
-     * @param tileX              Number x Tile in the map's x-Axis
-     * @param tileY              Number y Tile in the map's y-Axis
-     * @param textureRegionWidth Size of the sprite image (If it is 0, that means the cell is flipped).
+     * @param shape Terrain shape
      * @return BodyDef, meaning body's location
      */
-    private BodyDef getBodyDef(float x, float y, float height, float width,
-                               int tileX, int tileY, float textureRegionWidth) {
+    private BodyDef getBodyDef(TerrainShape shape) {
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.StaticBody;
-
-        // Calculate offset based on tile coordinates
-        float bodyX = (tileX * tileWidth) / Constants.PPM +
-                (textureRegionWidth != 0 ? -x / Constants.PPM : x / Constants.PPM)
-                + (width / 2f / Constants.PPM) + textureRegionWidth / Constants.PPM;
-        float bodyY = (tileY * tileHeight) / Constants.PPM + y / Constants.PPM + (height / 2f / Constants.PPM);
-
-        bodyDef.position.set(bodyX, bodyY);
+        bodyDef.position.set(shape.getBodyX(), shape.getBodyY());
         bodyDef.fixedRotation = true;
 
         // The bodies don't act in any physics simulation. They wake up on collision tho.
@@ -197,18 +146,4 @@ public class WorldCollision {
     public boolean areCollisionsCreated() {
         return collisionsCreated;
     }
-
-    public ArrayList<MapObjectData> loadWorldData() {
-        ArrayList<MapObjectData> data = new ArrayList<>();
-        try (InputStream inputStream = getClass().getResourceAsStream("/mapdata.bin")) {
-            if (inputStream == null) {
-                throw new FileNotFoundException("mapdata.bin not found in resources");
-            }
-            Input input = new Input(inputStream);
-            data = kryo.readObject(input, ArrayList.class);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return data;
-    }
 }